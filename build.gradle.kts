@@ -3,6 +3,7 @@ import org.jetbrains.intellij.platform.gradle.TestFrameworkType
 plugins {
     id("java")
     id("org.jetbrains.intellij.platform")
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = providers.gradleProperty("pluginGroup").get()
@@ -26,8 +27,24 @@ dependencies {
 
     // PDF generation
     implementation("org.apache.pdfbox:pdfbox:2.0.30")
-    implementation("com.openhtmltopdf:openhtmltopdf-core:1.0.10")
-    implementation("com.openhtmltopdf:openhtmltopdf-pdfbox:1.0.10")
+}
+
+// The benchmarks run the plugin classes against synthetic keymaps, without an IDE, but with the platform jars.
+configurations {
+    named("jmhImplementation") {
+        extendsFrom(compileOnly.get())
+    }
+}
+
+// ./gradlew jmh -> build/results/jmh/results.json; the gc profiler adds the allocation rate per operation.
+jmh {
+    jmhVersion = "1.37"
+    benchmarkMode = listOf("thrpt")
+    profilers = listOf("gc")
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    resultFormat = "JSON"
 }
 
 // Configure IntelliJ Platform Gradle Plugin -> https://plugins.jetbrains.com/docs/intellij/tools-intellij-platform-gradle-plugin-extension.html
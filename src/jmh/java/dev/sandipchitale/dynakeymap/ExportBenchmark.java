@@ -0,0 +1,53 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Rendering the parts of the exports that grow with the keymap, into sinks that discard the output: the HTML
+ * sections, and the PDF Action Map table including saving the document. The cover pages need a running IDE.
+ */
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int actions;
+
+    private KeymapSnapshot snapshot;
+    private KeyMapTableModel.Rows keyMapRows;
+    private ProgressIndicator indicator;
+
+    @Setup
+    public void setUp() {
+        snapshot = KeymapSnapshot.collect(new SyntheticKeymap(actions));
+        keyMapRows = KeyMapTableModel.Rows.build(snapshot, false);
+        indicator = new EmptyProgressIndicator(ModalityState.nonModal());
+    }
+
+    @Benchmark
+    public void html() throws IOException {
+        try (Writer out = Writer.nullWriter()) {
+            HtmlExporter.writeSections(out, snapshot, snapshot.keymapName(), keyMapRows, indicator);
+        }
+    }
+
+    @Benchmark
+    public void pdf() throws IOException {
+        try (PDDocument document = new PDDocument(MemoryUsageSetting.setupMainMemoryOnly())) {
+            PdfExporter.writeActionMap(document, PdfTableWriter.Fonts.detached(document), snapshot, indicator);
+            document.save(OutputStream.nullOutputStream());
+        }
+    }
+}
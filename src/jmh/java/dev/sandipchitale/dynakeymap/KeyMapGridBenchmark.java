@@ -0,0 +1,30 @@
+package dev.sandipchitale.dynakeymap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Indexing a snapshot into the Keymap grid, probing every key (dense) or only the bound keystrokes (sparse). */
+@State(Scope.Benchmark)
+public class KeyMapGridBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int actions;
+
+    @Param({"false", "true"})
+    public boolean boundKeysOnly;
+
+    private KeymapSnapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        snapshot = KeymapSnapshot.collect(new SyntheticKeymap(actions));
+    }
+
+    @Benchmark
+    public KeyMapTableModel.Rows build() {
+        return KeyMapTableModel.Rows.build(snapshot, boundKeysOnly);
+    }
+}
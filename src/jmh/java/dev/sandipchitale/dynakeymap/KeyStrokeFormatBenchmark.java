@@ -0,0 +1,68 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.actionSystem.KeyboardShortcut;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.swing.KeyStroke;
+
+import static dev.sandipchitale.dynakeymap.KeyMapLayout.KEY_CODES;
+import static dev.sandipchitale.dynakeymap.KeyMapLayout.MODIFIER_MASKS;
+
+/**
+ * Formatting every keystroke of the grid once per invocation, as the tables and exporters do. Past the first invocation
+ * every keystroke is served from the {@link KeyStrokeFormat} cache.
+ */
+@State(Scope.Benchmark)
+public class KeyStrokeFormatBenchmark {
+
+    private KeyStroke[] keyStrokes;
+    private KeyboardShortcut[] shortcuts;
+
+    @Setup
+    public void setUp() {
+        keyStrokes = new KeyStroke[KEY_CODES.length * MODIFIER_MASKS.length];
+        shortcuts = new KeyboardShortcut[keyStrokes.length];
+        for (int key = 0; key < KEY_CODES.length; key++) {
+            for (int modifier = 0; modifier < MODIFIER_MASKS.length; modifier++) {
+                int i = key * MODIFIER_MASKS.length + modifier;
+                keyStrokes[i] = KeyStroke.getKeyStroke(KEY_CODES[key], MODIFIER_MASKS[modifier]);
+                shortcuts[i] = new KeyboardShortcut(keyStrokes[i], null);
+            }
+        }
+    }
+
+    /** The style {@link #format} is measured in; kept apart so that {@link #text} runs once, not once per style. */
+    @State(Scope.Benchmark)
+    public static class StyleState {
+        // A String, resolved in setUp: the generated code lives in a sub-package and cannot name the package-private
+        // KeyStrokeFormat.Style.
+        @Param({"COMPACT", "BRACKETED", "SYMBOLS"})
+        public String styleName;
+
+        KeyStrokeFormat.Style style;
+
+        @Setup
+        public void setUp() {
+            style = KeyStrokeFormat.Style.valueOf(styleName);
+        }
+    }
+
+    @Benchmark
+    public void format(StyleState styleState, Blackhole blackhole) {
+        for (KeyStroke keyStroke : keyStrokes) {
+            blackhole.consume(KeyStrokeFormat.format(keyStroke, styleState.style));
+        }
+    }
+
+    @Benchmark
+    public void text(Blackhole blackhole) {
+        for (KeyboardShortcut shortcut : shortcuts) {
+            blackhole.consume(KeyStrokeFormat.text(shortcut));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package dev.sandipchitale.dynakeymap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Collecting a snapshot: the action table with its text indexes, and the keystroke and chord indexes. */
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int actions;
+
+    private SyntheticKeymap keymap;
+
+    @Setup
+    public void setUp() {
+        keymap = new SyntheticKeymap(actions);
+    }
+
+    @Benchmark
+    public KeymapSnapshot collect() {
+        return KeymapSnapshot.collect(keymap);
+    }
+}
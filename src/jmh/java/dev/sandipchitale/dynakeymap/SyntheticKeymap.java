@@ -0,0 +1,77 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.actionSystem.KeyboardShortcut;
+import com.intellij.openapi.actionSystem.Shortcut;
+
+import javax.swing.KeyStroke;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static dev.sandipchitale.dynakeymap.KeyMapLayout.KEY_CODES;
+import static dev.sandipchitale.dynakeymap.KeyMapLayout.MODIFIER_MASKS;
+
+/**
+ * A generated keymap of a given size, shaped roughly like the bundled ones: about two thirds of the actions are
+ * bound, most to one keystroke, some to two, and a few to chords. Seeded, so every run measures the same keymap.
+ */
+final class SyntheticKeymap implements KeymapSource {
+
+    private static final Shortcut[] NO_SHORTCUTS = new Shortcut[0];
+
+    private final String name;
+    private final Map<String, Shortcut[]> shortcuts = new LinkedHashMap<>();
+    private final Map<String, String> actionNames = new LinkedHashMap<>();
+
+    SyntheticKeymap(int actions) {
+        name = "Synthetic " + actions;
+        Random random = new Random(actions);
+        for (int action = 0; action < actions; action++) {
+            String actionId = "synthetic.Action" + action;
+            actionNames.put(actionId, "Synthetic Action " + Integer.toString(action, 36) + " " + (char) ('A' + random.nextInt(26)));
+            int kind = random.nextInt(30);
+            Shortcut[] actionShortcuts;
+            if (kind < 10) {
+                actionShortcuts = NO_SHORTCUTS;
+            } else if (kind < 26) {
+                actionShortcuts = new Shortcut[]{new KeyboardShortcut(keyStroke(random), null)};
+            } else if (kind < 29) {
+                actionShortcuts = new Shortcut[]{new KeyboardShortcut(keyStroke(random), null), new KeyboardShortcut(keyStroke(random), null)};
+            } else {
+                actionShortcuts = new Shortcut[]{new KeyboardShortcut(keyStroke(random), keyStroke(random))};
+            }
+            shortcuts.put(actionId, actionShortcuts);
+        }
+    }
+
+    private static KeyStroke keyStroke(Random random) {
+        return KeyStroke.getKeyStroke(KEY_CODES[random.nextInt(KEY_CODES.length)], MODIFIER_MASKS[random.nextInt(MODIFIER_MASKS.length)]);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Collection<String> actionIds() {
+        return shortcuts.keySet();
+    }
+
+    @Override
+    public Shortcut[] shortcuts(String actionId) {
+        return shortcuts.get(actionId);
+    }
+
+    @Override
+    public String actionName(String actionId) {
+        return actionNames.get(actionId);
+    }
+
+    @Override
+    public Set<String> overrides() {
+        return Set.of();
+    }
+}
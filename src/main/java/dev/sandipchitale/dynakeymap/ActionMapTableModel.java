@@ -0,0 +1,219 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.actionSystem.KeyboardShortcut;
+import com.intellij.openapi.actionSystem.Shortcut;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import javax.swing.KeyStroke;
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static dev.sandipchitale.dynakeymap.KeyMapLayout.*;
+
+/**
+ * Action Map tab model: one row per keyboard shortcut of a bound action, then one row per unbound action, each
+ * section ordered like the snapshot's action table (by display name).
+ */
+final class ActionMapTableModel extends AbstractTableModel implements FilterableTableModel {
+
+    /**
+     * Columnar, immutable table contents; built off the EDT and swapped in with {@link #setRows(Rows)}.
+     *
+     * @param actionTable      the snapshot's action table that {@code actions} indexes into
+     * @param actions          action index per row
+     * @param firstKeyStrokes  packed first keystroke per row ({@link KeyStrokeCodes#NONE} for unbound actions)
+     * @param secondKeyStrokes packed second keystroke per row ({@link KeyStrokeCodes#NONE} if not a chord)
+     * @param labels           bracketed label of every distinct packed keystroke in the rows
+     */
+    record Rows(KeymapSnapshot.ActionTable actionTable,
+                int[] actions,
+                int[] firstKeyStrokes,
+                int[] secondKeyStrokes,
+                Map<Integer, String> labels) {
+
+        static final Rows EMPTY = new Rows(KeymapSnapshot.ActionTable.of(Map.of()), new int[0], new int[0], new int[0], Map.of());
+
+        int size() {
+            return actions.length;
+        }
+
+        String label(int keyStrokeCode) {
+            return keyStrokeCode == KeyStrokeCodes.NONE ? "" : labels.get(keyStrokeCode);
+        }
+
+        /** Builds the rows of every action, or only of those the keymap {@link KeymapSnapshot#overrides overrides}. */
+        static Rows build(KeymapSnapshot snapshot, boolean overridesOnly) {
+            return forActions(snapshot, actions(snapshot, IntStream.range(0, snapshot.actionTable().size()).toArray(), overridesOnly));
+        }
+
+        /** Returns the given actions, or only those the keymap overrides, in the same order. */
+        static int[] actions(KeymapSnapshot snapshot, int[] actions, boolean overridesOnly) {
+            if (!overridesOnly) {
+                return actions;
+            }
+            return Arrays.stream(actions).filter(action -> snapshot.overrides().contains(snapshot.actionTable().id(action))).toArray();
+        }
+
+        /** Builds the rows of just the given actions, which must be in ascending order. */
+        static Rows forActions(KeymapSnapshot snapshot, int[] actions) {
+            KeymapSnapshot.ActionTable actionTable = snapshot.actionTable();
+            IntArrayList rowActions = new IntArrayList();
+            IntArrayList firstKeyStrokes = new IntArrayList();
+            IntArrayList secondKeyStrokes = new IntArrayList();
+            Map<Integer, String> labels = new HashMap<>();
+
+            for (int action : actions) {
+                for (Shortcut shortcut : snapshot.shortcuts().get(actionTable.id(action))) {
+                    if (shortcut instanceof KeyboardShortcut keyboardShortcut) {
+                        rowActions.add(action);
+                        firstKeyStrokes.add(packAndLabel(keyboardShortcut.getFirstKeyStroke(), labels));
+                        secondKeyStrokes.add(packAndLabel(keyboardShortcut.getSecondKeyStroke(), labels));
+                    }
+                }
+            }
+
+            for (int action : actions) {
+                if (snapshot.shortcuts().get(actionTable.id(action)).length == 0) {
+                    rowActions.add(action);
+                    firstKeyStrokes.add(KeyStrokeCodes.NONE);
+                    secondKeyStrokes.add(KeyStrokeCodes.NONE);
+                }
+            }
+
+            return new Rows(actionTable, rowActions.toIntArray(), firstKeyStrokes.toIntArray(), secondKeyStrokes.toIntArray(), Map.copyOf(labels));
+        }
+
+        private static int packAndLabel(KeyStroke keyStroke, Map<Integer, String> labels) {
+            int code = KeyStrokeCodes.pack(keyStroke);
+            if (code != KeyStrokeCodes.NONE) {
+                labels.computeIfAbsent(code, c -> KeyStrokeFormat.bracketed(keyStroke));
+            }
+            return code;
+        }
+
+        /** Rows sort by section (bound before unbound), then by action index. */
+        private static long sortKey(boolean unbound, int action) {
+            return (unbound ? 1L << 32 : 0L) | action;
+        }
+
+        private long sortKey(int row) {
+            return sortKey(firstKeyStrokes[row] == KeyStrokeCodes.NONE, actions[row]);
+        }
+
+        /** Returns the first row whose sort key is not less than {@code key}. */
+        int lowerBound(long key) {
+            int low = 0;
+            int high = size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sortKey(mid) < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /** Returns a copy with rows {@code [from, to)} replaced by rows {@code [insertFrom, insertTo)} of {@code insert}. */
+        Rows splice(int from, int to, Rows insert, int insertFrom, int insertTo) {
+            Map<Integer, String> splicedLabels = labels;
+            if (insertTo > insertFrom) {
+                Map<Integer, String> merged = new HashMap<>(labels);
+                merged.putAll(insert.labels());
+                splicedLabels = Map.copyOf(merged);
+            }
+            return new Rows(insert.actionTable(),
+                    Columns.splice(actions, from, to, insert.actions(), insertFrom, insertTo, int[]::new),
+                    Columns.splice(firstKeyStrokes, from, to, insert.firstKeyStrokes(), insertFrom, insertTo, int[]::new),
+                    Columns.splice(secondKeyStrokes, from, to, insert.secondKeyStrokes(), insertFrom, insertTo, int[]::new),
+                    splicedLabels);
+        }
+    }
+
+    private Rows rows = Rows.EMPTY;
+
+    Rows getRows() {
+        return rows;
+    }
+
+    /** Replaces the whole table contents, firing a single data changed event. */
+    void setRows(Rows rows) {
+        this.rows = rows;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Replaces the rows of the given actions (ascending, same action table) by their rows in {@code patch}, as built
+     * by {@link Rows#forActions}. Fires row events for just those rows.
+     */
+    void patchRows(Rows patch, int[] actions) {
+        for (int action : actions) {
+            for (boolean unbound : new boolean[]{false, true}) {
+                int from = rows.lowerBound(Rows.sortKey(unbound, action));
+                int to = rows.lowerBound(Rows.sortKey(unbound, action + 1));
+                if (to > from) {
+                    rows = rows.splice(from, to, patch, 0, 0);
+                    fireTableRowsDeleted(from, to - 1);
+                }
+            }
+            for (boolean unbound : new boolean[]{false, true}) {
+                int insertFrom = patch.lowerBound(Rows.sortKey(unbound, action));
+                int insertTo = patch.lowerBound(Rows.sortKey(unbound, action + 1));
+                if (insertTo > insertFrom) {
+                    int at = rows.lowerBound(Rows.sortKey(unbound, action));
+                    rows = rows.splice(at, at, patch, insertFrom, insertTo);
+                    fireTableRowsInserted(at, at + insertTo - insertFrom - 1);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean matches(int row, TextQuery query, boolean[] visibleColumns) {
+        int action = rows.actions()[row];
+        return visibleColumns[ACTION_COLUMN] && query.matchesName(rows.actionTable(), action)
+                || visibleColumns[FIRST_KEYSTROKE_COLUMN] && query.matchesLabel(rows.labels().get(rows.firstKeyStrokes()[row]))
+                || visibleColumns[SECOND_KEYSTROKE_COLUMN] && query.matchesLabel(rows.labels().get(rows.secondKeyStrokes()[row]))
+                || visibleColumns[ACTION_ID_COLUMN] && query.matchesId(rows.actionTable(), action);
+    }
+
+    @Override
+    public boolean matches(int row, KeyStrokeQuery query) {
+        return query.matches(rows.firstKeyStrokes()[row], rows.secondKeyStrokes()[row]);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return ACTIONMAP_COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return ACTIONMAP_COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return switch (column) {
+            case ACTION_COLUMN -> rows.actionTable().name(rows.actions()[row]);
+            case FIRST_KEYSTROKE_COLUMN -> rows.label(rows.firstKeyStrokes()[row]);
+            case SECOND_KEYSTROKE_COLUMN -> rows.label(rows.secondKeyStrokes()[row]);
+            case ACTION_ID_COLUMN -> rows.actionTable().id(rows.actions()[row]);
+            default -> throw new IndexOutOfBoundsException(column);
+        };
+    }
+}
@@ -0,0 +1,160 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.concurrency.SensitiveProgressWrapper;
+import com.intellij.notification.NotificationGroupManager;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.fileChooser.FileChooser;
+import com.intellij.openapi.fileChooser.FileChooserDescriptorFactory;
+import com.intellij.openapi.keymap.Keymap;
+import com.intellij.openapi.keymap.ex.KeymapManagerEx;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Exports every installed keymap as HTML, PDF and JSON into one directory. Snapshots are collected concurrently in
+ * non-blocking read actions and the files are written on a bounded pool, all under a single progress indicator.
+ * Nothing is opened in the browser.
+ */
+final class BatchExporter {
+
+    // Exports are mostly CPU bound; leave a core to the IDE.
+    private static final int WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    /** What every format of a keymap is written from. */
+    private record Prepared(KeymapSnapshot snapshot, KeyMapTableModel.Rows keyMapRows) {
+    }
+
+    /**
+     * @param boundKeysOnly the mode the Keymap grid of the HTML files is built in
+     */
+    static void exportAll(Project project, boolean boundKeysOnly) {
+        VirtualFile directory = FileChooser.chooseFile(
+                FileChooserDescriptorFactory.createSingleFolderDescriptor().withTitle("Export All Keymaps To"), project, null);
+        if (directory == null) {
+            return;
+        }
+        List<Keymap> keymaps = List.of(KeymapManagerEx.getInstanceEx().getAllKeymaps());
+        new Task.Backgroundable(project, "Exporting all keymaps", true) {
+            private List<String> failures;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                failures = write(keymaps, directory.toNioPath(), boundKeysOnly, indicator);
+            }
+
+            @Override
+            public void onSuccess() {
+                String content = failures.isEmpty()
+                        ? "Exported " + keymaps.size() + " keymaps to " + directory.getPresentableUrl()
+                        : "Could not export:<br/>" + String.join("<br/>", failures);
+                NotificationGroupManager.getInstance().getNotificationGroup("dynakeymapNotificationGroup")
+                        .createNotification(content, failures.isEmpty() ? NotificationType.INFORMATION : NotificationType.WARNING)
+                        .notify(project);
+            }
+        }.queue();
+    }
+
+    /**
+     * Writes every format of every keymap to {@code directory}, in files named after the keymaps. A keymap that cannot
+     * be collected or a file that cannot be written does not stop the others. Returns once no worker is writing any
+     * more, also when cancelled.
+     *
+     * @return a description of every file that could not be written
+     */
+    static List<String> write(List<Keymap> keymaps, Path directory, boolean boundKeysOnly, ProgressIndicator indicator) {
+        indicator.setIndeterminate(false);
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("DynaKeyMap Export", WORKERS);
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+        AtomicInteger written = new AtomicInteger();
+        double total = keymaps.size() * ExportFormat.values().length;
+        // The jobs on the pool, and per file the stage that records its outcome.
+        List<CompletableFuture<?>> jobs = new ArrayList<>();
+        List<CompletableFuture<Void>> exports = new ArrayList<>();
+        try {
+            for (Keymap keymap : keymaps) {
+                CompletableFuture<Prepared> prepared = CompletableFuture.supplyAsync(
+                        () -> underProgress(indicator, worker -> prepare(keymap, boundKeysOnly)), executor);
+                jobs.add(prepared);
+                for (ExportFormat format : ExportFormat.values()) {
+                    Path path = directory.resolve(fileName(keymap) + "." + format.extension());
+                    CompletableFuture<Void> write = prepared.thenAcceptAsync(export -> underProgress(indicator, worker -> {
+                        try {
+                            format.write(export.snapshot(), export.keyMapRows(), keymap.getPresentableName(), path, worker);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        return null;
+                    }), executor);
+                    jobs.add(write);
+                    exports.add(write.handle((ignored, error) -> {
+                        // Failures of the collect, the read action or the write all end up here, as do cancellations.
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        if (cause instanceof UncheckedIOException unchecked) {
+                            cause = unchecked.getCause();
+                        }
+                        if (cause != null && !(cause instanceof ProcessCanceledException) && !(cause instanceof CancellationException)) {
+                            failures.add(path.getFileName() + ": " + (cause.getMessage() != null ? cause.getMessage() : cause.toString()));
+                        }
+                        indicator.setText2(path.getFileName().toString());
+                        indicator.setFraction(written.incrementAndGet() / total);
+                        return null;
+                    }));
+                }
+            }
+            for (CompletableFuture<Void> export : exports) {
+                ProgressIndicatorUtils.awaitWithCheckCanceled(export, indicator);
+            }
+        } finally {
+            // Jobs not yet started are skipped; those running are waited for, so no file is written after this returns.
+            jobs.forEach(job -> job.cancel(false));
+            Exports.shutdownAndAwait(executor);
+        }
+        return List.copyOf(failures);
+    }
+
+    private static Prepared prepare(Keymap keymap, boolean boundKeysOnly) {
+        return ReadAction.nonBlocking(() -> {
+            KeymapSnapshot snapshot = KeymapSnapshots.getInstance().get(keymap);
+            return new Prepared(snapshot, KeyMapTableModel.Rows.build(snapshot, boundKeysOnly));
+        }).executeSynchronously();
+    }
+
+    /**
+     * Runs a job on a pool thread with an indicator of its own that is cancelled along with {@code indicator}, so
+     * that the exporters' progress texts and fractions do not overwrite the overall progress.
+     */
+    private static <T> T underProgress(ProgressIndicator indicator, Function<ProgressIndicator, T> job) {
+        ProgressIndicator worker = new SensitiveProgressWrapper(indicator);
+        return ProgressManager.getInstance().runProcess(() -> job.apply(worker), worker);
+    }
+
+    /** The keymap name with the characters that are unsafe in file names replaced. */
+    static String fileName(Keymap keymap) {
+        return keymap.getName().replaceAll("[^\\w .-]+", "_");
+    }
+
+    private BatchExporter() {
+    }
+}
@@ -0,0 +1,25 @@
+package dev.sandipchitale.dynakeymap;
+
+import java.lang.reflect.Array;
+import java.util.function.IntFunction;
+
+/** Helpers for the primitive column arrays of the table models. */
+final class Columns {
+
+    /**
+     * Returns a copy of {@code array} whose range {@code [from, to)} is replaced by the range
+     * {@code [insertFrom, insertTo)} of {@code insert}. Works for any array type, including primitive ones.
+     */
+    static <A> A splice(A array, int from, int to, A insert, int insertFrom, int insertTo, IntFunction<A> newArray) {
+        int length = Array.getLength(array);
+        int insertLength = insertTo - insertFrom;
+        A spliced = newArray.apply(length - (to - from) + insertLength);
+        System.arraycopy(array, 0, spliced, 0, from);
+        System.arraycopy(insert, insertFrom, spliced, from, insertLength);
+        System.arraycopy(array, to, spliced, from + insertLength, length - to);
+        return spliced;
+    }
+
+    private Columns() {
+    }
+}
@@ -0,0 +1,233 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.actionSystem.KeyboardShortcut;
+import com.intellij.openapi.actionSystem.Shortcut;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Shortcut conflicts of a snapshot: a shortcut bound to several actions, and a single keystroke binding that shadows
+ * the chords starting with that keystroke. Kept next to the tables and {@link #patch patched} with the changed actions
+ * like the snapshot itself, re-evaluating only the shortcuts those actions had or have.
+ */
+final class ConflictIndex {
+
+    enum Kind {
+        DUPLICATE("Same shortcut"), CHORD_PREFIX("Shadows chords");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * @param firstKeyStroke  packed first keystroke
+     * @param secondKeyStroke packed second keystroke of a duplicate chord, {@link KeyStrokeCodes#NONE} otherwise
+     * @param actions         the actions bound to the shortcut (for chord prefixes, to the single keystroke)
+     * @param chordActions    for chord prefixes, the actions with a chord starting with the keystroke; empty otherwise
+     */
+    record Conflict(Kind kind, int firstKeyStroke, int secondKeyStroke, int[] actions, int[] chordActions) {
+    }
+
+    /** Table order; any total order over the conflict identities would do. */
+    static final Comparator<Conflict> ORDER = Comparator.comparingInt((Conflict conflict) -> conflict.kind().ordinal())
+            .thenComparing(Conflict::firstKeyStroke, Integer::compareUnsigned)
+            .thenComparing(Conflict::secondKeyStroke, Integer::compareUnsigned);
+
+    /** A patched index and the conflicts that went away or came up, both in {@link #ORDER}. */
+    record Patch(ConflictIndex index, List<Conflict> removed, List<Conflict> added) {
+    }
+
+    private static final int[] NO_ACTIONS = new int[0];
+
+    private final KeymapSnapshot snapshot;
+    // Packed (first, second) shortcut to its actions, sorted.
+    private final Long2ObjectOpenHashMap<int[]> actionsByShortcut;
+    // Packed first keystroke to the actions with a chord starting with it, sorted.
+    private final Int2ObjectOpenHashMap<int[]> chordActionsByFirstKeyStroke;
+    private final Long2ObjectOpenHashMap<Conflict> duplicates;
+    private final Int2ObjectOpenHashMap<Conflict> chordPrefixes;
+
+    private ConflictIndex(KeymapSnapshot snapshot,
+                          Long2ObjectOpenHashMap<int[]> actionsByShortcut,
+                          Int2ObjectOpenHashMap<int[]> chordActionsByFirstKeyStroke,
+                          Long2ObjectOpenHashMap<Conflict> duplicates,
+                          Int2ObjectOpenHashMap<Conflict> chordPrefixes) {
+        this.snapshot = snapshot;
+        this.actionsByShortcut = actionsByShortcut;
+        this.chordActionsByFirstKeyStroke = chordActionsByFirstKeyStroke;
+        this.duplicates = duplicates;
+        this.chordPrefixes = chordPrefixes;
+    }
+
+    static ConflictIndex build(KeymapSnapshot snapshot) {
+        ConflictIndex index = new ConflictIndex(snapshot, new Long2ObjectOpenHashMap<>(), new Int2ObjectOpenHashMap<>(),
+                new Long2ObjectOpenHashMap<>(), new Int2ObjectOpenHashMap<>());
+        LongOpenHashSet shortcuts = new LongOpenHashSet();
+        for (String actionId : snapshot.shortcuts().keySet()) {
+            index.reindex(snapshot.actionTable().indexOf(actionId), Shortcut.EMPTY_ARRAY, snapshot.shortcuts().get(actionId), shortcuts);
+        }
+        index.evaluate(shortcuts, new ArrayList<>(), new ArrayList<>());
+        return index;
+    }
+
+    KeymapSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /** All conflicts, in {@link #ORDER}. */
+    List<Conflict> conflicts() {
+        List<Conflict> conflicts = new ArrayList<>(duplicates.size() + chordPrefixes.size());
+        conflicts.addAll(duplicates.values());
+        conflicts.addAll(chordPrefixes.values());
+        conflicts.sort(ORDER);
+        return conflicts;
+    }
+
+    /**
+     * Returns the index of {@code patched}, a {@link KeymapSnapshot#patch patch} of this index's snapshot (same action
+     * table) in which only the given actions changed. This index is left as it is.
+     */
+    Patch patch(KeymapSnapshot patched, Collection<String> actionIds) {
+        ConflictIndex index = new ConflictIndex(patched,
+                new Long2ObjectOpenHashMap<>(actionsByShortcut),
+                new Int2ObjectOpenHashMap<>(chordActionsByFirstKeyStroke),
+                new Long2ObjectOpenHashMap<>(duplicates),
+                new Int2ObjectOpenHashMap<>(chordPrefixes));
+        LongOpenHashSet shortcuts = new LongOpenHashSet();
+        for (String actionId : actionIds) {
+            int action = patched.actionTable().indexOf(actionId);
+            if (action >= 0) {
+                index.reindex(action,
+                        snapshot.shortcuts().getOrDefault(actionId, Shortcut.EMPTY_ARRAY),
+                        patched.shortcuts().getOrDefault(actionId, Shortcut.EMPTY_ARRAY),
+                        shortcuts);
+            }
+        }
+        List<Conflict> removed = new ArrayList<>();
+        List<Conflict> added = new ArrayList<>();
+        index.evaluate(shortcuts, removed, added);
+        removed.sort(ORDER);
+        added.sort(ORDER);
+        return new Patch(index, removed, added);
+    }
+
+    /** Moves an action from its old to its new shortcuts, collecting every shortcut touched. */
+    private void reindex(int action, Shortcut[] oldShortcuts, Shortcut[] newShortcuts, LongOpenHashSet touched) {
+        for (Shortcut shortcut : oldShortcuts) {
+            if (shortcut instanceof KeyboardShortcut keyboardShortcut) {
+                long key = key(keyboardShortcut);
+                touched.add(key);
+                actionsByShortcut.put(key, without(actionsByShortcut.getOrDefault(key, NO_ACTIONS), action));
+                if (second(key) != KeyStrokeCodes.NONE) {
+                    chordActionsByFirstKeyStroke.put(first(key), without(chordActionsByFirstKeyStroke.getOrDefault(first(key), NO_ACTIONS), action));
+                }
+            }
+        }
+        for (Shortcut shortcut : newShortcuts) {
+            if (shortcut instanceof KeyboardShortcut keyboardShortcut) {
+                long key = key(keyboardShortcut);
+                touched.add(key);
+                actionsByShortcut.put(key, with(actionsByShortcut.getOrDefault(key, NO_ACTIONS), action));
+                if (second(key) != KeyStrokeCodes.NONE) {
+                    chordActionsByFirstKeyStroke.put(first(key), with(chordActionsByFirstKeyStroke.getOrDefault(first(key), NO_ACTIONS), action));
+                }
+            }
+        }
+    }
+
+    /** Re-evaluates the conflicts the touched shortcuts take part in, dropping index entries left empty. */
+    private void evaluate(LongOpenHashSet touched, List<Conflict> removed, List<Conflict> added) {
+        IntOpenHashSet firstKeyStrokes = new IntOpenHashSet();
+        for (long key : touched) {
+            firstKeyStrokes.add(first(key));
+            int[] actions = actionsByShortcut.get(key);
+            if (actions.length == 0) {
+                actionsByShortcut.remove(key);
+            }
+            Conflict conflict = actions.length > 1
+                    ? new Conflict(Kind.DUPLICATE, first(key), second(key), actions, NO_ACTIONS)
+                    : null;
+            replace(conflict == null ? duplicates.remove(key) : duplicates.put(key, conflict), conflict, removed, added);
+        }
+        for (int firstKeyStroke : firstKeyStrokes) {
+            int[] chordActions = chordActionsByFirstKeyStroke.getOrDefault(firstKeyStroke, NO_ACTIONS);
+            if (chordActions.length == 0) {
+                chordActionsByFirstKeyStroke.remove(firstKeyStroke);
+            }
+            int[] actions = actionsByShortcut.getOrDefault(key(firstKeyStroke, KeyStrokeCodes.NONE), NO_ACTIONS);
+            Conflict conflict = actions.length > 0 && chordActions.length > 0
+                    ? new Conflict(Kind.CHORD_PREFIX, firstKeyStroke, KeyStrokeCodes.NONE, actions, chordActions)
+                    : null;
+            replace(conflict == null ? chordPrefixes.remove(firstKeyStroke) : chordPrefixes.put(firstKeyStroke, conflict), conflict, removed, added);
+        }
+    }
+
+    private static void replace(Conflict previous, Conflict current, List<Conflict> removed, List<Conflict> added) {
+        if (previous != null && current != null && Arrays.equals(previous.actions(), current.actions())
+                && Arrays.equals(previous.chordActions(), current.chordActions())) {
+            return;
+        }
+        if (previous != null) {
+            removed.add(previous);
+        }
+        if (current != null) {
+            added.add(current);
+        }
+    }
+
+    private static long key(KeyboardShortcut shortcut) {
+        return key(KeyStrokeCodes.pack(shortcut.getFirstKeyStroke()), KeyStrokeCodes.pack(shortcut.getSecondKeyStroke()));
+    }
+
+    private static long key(int firstKeyStroke, int secondKeyStroke) {
+        return ((long) firstKeyStroke << 32) | (secondKeyStroke & 0xFFFFFFFFL);
+    }
+
+    private static int first(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int second(long key) {
+        return (int) key;
+    }
+
+    private static int[] with(int[] actions, int action) {
+        int position = Arrays.binarySearch(actions, action);
+        if (position >= 0) {
+            return actions;
+        }
+        int insertion = -position - 1;
+        int[] result = new int[actions.length + 1];
+        System.arraycopy(actions, 0, result, 0, insertion);
+        result[insertion] = action;
+        System.arraycopy(actions, insertion, result, insertion + 1, actions.length - insertion);
+        return result;
+    }
+
+    private static int[] without(int[] actions, int action) {
+        int position = Arrays.binarySearch(actions, action);
+        if (position < 0) {
+            return actions;
+        }
+        int[] result = new int[actions.length - 1];
+        System.arraycopy(actions, 0, result, 0, position);
+        System.arraycopy(actions, position + 1, result, position, actions.length - position - 1);
+        return result;
+    }
+}
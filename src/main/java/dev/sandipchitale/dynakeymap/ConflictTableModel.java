@@ -0,0 +1,97 @@
+package dev.sandipchitale.dynakeymap;
+
+import javax.swing.KeyStroke;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/** Conflicts tab model: one row per {@link ConflictIndex.Conflict}, in {@link ConflictIndex#ORDER}. */
+final class ConflictTableModel extends AbstractTableModel {
+
+    static final int KIND_COLUMN = 0;
+    static final int SHORTCUT_COLUMN = 1;
+    static final int ACTIONS_COLUMN = 2;
+    static final int CHORD_ACTIONS_COLUMN = 3;
+
+    private static final String[] COLUMNS = {"Conflict", "Shortcut", "Actions", "Shadowed Chords"};
+
+    private final List<ConflictIndex.Conflict> conflicts = new ArrayList<>();
+    private KeymapSnapshot.ActionTable actionTable = KeymapSnapshot.ActionTable.of(Map.of());
+
+    void setIndex(ConflictIndex index) {
+        actionTable = index.snapshot().actionTable();
+        conflicts.clear();
+        conflicts.addAll(index.conflicts());
+        fireTableDataChanged();
+    }
+
+    /** Removes and inserts just the conflicts that changed, with a row event for each. */
+    void patchRows(ConflictIndex.Patch patch) {
+        actionTable = patch.index().snapshot().actionTable();
+        for (ConflictIndex.Conflict conflict : patch.removed()) {
+            int row = Collections.binarySearch(conflicts, conflict, ConflictIndex.ORDER);
+            if (row >= 0) {
+                conflicts.remove(row);
+                fireTableRowsDeleted(row, row);
+            }
+        }
+        for (ConflictIndex.Conflict conflict : patch.added()) {
+            int row = Collections.binarySearch(conflicts, conflict, ConflictIndex.ORDER);
+            if (row < 0) {
+                row = -row - 1;
+                conflicts.add(row, conflict);
+                fireTableRowsInserted(row, row);
+            }
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return conflicts.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == KIND_COLUMN ? ConflictIndex.Kind.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        ConflictIndex.Conflict conflict = conflicts.get(row);
+        return switch (column) {
+            case KIND_COLUMN -> conflict.kind();
+            case SHORTCUT_COLUMN -> shortcut(conflict);
+            case ACTIONS_COLUMN -> actionNames(conflict.actions());
+            case CHORD_ACTIONS_COLUMN -> actionNames(conflict.chordActions());
+            default -> throw new IndexOutOfBoundsException(column);
+        };
+    }
+
+    private static String shortcut(ConflictIndex.Conflict conflict) {
+        KeyStroke second = conflict.secondKeyStroke() == KeyStrokeCodes.NONE ? null : KeyStrokeCodes.unpack(conflict.secondKeyStroke());
+        return KeyStrokeFormat.format(KeyStrokeCodes.unpack(conflict.firstKeyStroke()), second, KeyStrokeFormat.displayStyle());
+    }
+
+    private String actionNames(int[] actions) {
+        StringBuilder sb = new StringBuilder();
+        for (int action : actions) {
+            if (!sb.isEmpty()) {
+                sb.append(", ");
+            }
+            sb.append(actionTable.name(action));
+        }
+        return sb.toString();
+    }
+}
@@ -6,6 +6,8 @@ import org.jetbrains.annotations.NotNull;
 public class DynaKeyMapRefreshAction extends AbstractDynaKeyMapAction {
     @Override
     public void actionPerformed(@NotNull AnActionEvent anActionEvent) {
+        // An explicit refresh should not be served from the snapshot cache.
+        KeymapSnapshots.getInstance().invalidateAll();
         dynaKeyMapToolWindow.refresh();
     }
 }
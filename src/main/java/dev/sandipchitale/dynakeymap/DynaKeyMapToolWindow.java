@@ -1,12 +1,18 @@
 package dev.sandipchitale.dynakeymap;
 
 import com.intellij.icons.AllIcons;
+import com.intellij.ide.util.PropertiesComponent;
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.KeyboardShortcut;
 import com.intellij.openapi.actionSystem.Shortcut;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.keymap.Keymap;
 import com.intellij.openapi.keymap.KeymapManager;
+import com.intellij.openapi.keymap.KeymapManagerListener;
 import com.intellij.openapi.keymap.ex.KeymapManagerEx;
 import com.intellij.openapi.keymap.impl.ui.EditKeymapsDialog;
 import com.intellij.openapi.project.Project;
@@ -14,51 +20,116 @@ import com.intellij.openapi.ui.ComboBox;
 import com.intellij.openapi.ui.SimpleToolWindowPanel;
 import com.intellij.openapi.wm.ToolWindowManager;
 import com.intellij.openapi.wm.ex.ToolWindowEx;
+import com.intellij.ui.DocumentAdapter;
 import com.intellij.ui.ScrollPaneFactory;
 import com.intellij.ui.SearchTextField;
+import com.intellij.ui.components.JBCheckBox;
 import com.intellij.ui.components.JBTabbedPane;
 import com.intellij.ui.table.JBTable;
+import com.intellij.util.Alarm;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.ui.JBUI;
 import com.intellij.util.ui.components.BorderLayoutPanel;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.concurrency.CancellablePromise;
 
 import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.TableColumnModelEvent;
+import javax.swing.event.TableColumnModelListener;
 import javax.swing.table.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.List;
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static dev.sandipchitale.dynakeymap.KeyMapLayout.*;
 
-public class DynaKeyMapToolWindow extends SimpleToolWindowPanel {
+public class DynaKeyMapToolWindow extends SimpleToolWindowPanel implements Disposable {
 
-    private static final Pattern KEY_MATCHER = Pattern.compile("([_\\w]+)");
+    private static final String BOUND_KEYS_ONLY_PROPERTY = "dev.sandipchitale.dynakeymap.boundKeysOnly";
+    private static final String OVERRIDES_ONLY_PROPERTY = "dev.sandipchitale.dynakeymap.overridesOnly";
+
+    // Keymap change notifications arriving within this window are coalesced into one update.
+    private static final int KEYMAP_CHANGE_DEBOUNCE_MS = 300;
+    private static final int SEARCH_DEBOUNCE_MS = 150;
+    private static final int ACTION_MAP_TAB = 0;
+    private static final int KEYMAP_TAB = 1;
+    private static final int CONFLICTS_TAB = 2;
+    private static final String SEARCH_TOOLTIP = "Filter. Text matches in the visible columns only."
+            + " Keystroke queries such as first:ctrl+alt+* second:[0-9] match bindings by keystroke.";
 
     private final Project project;
 
-    private final DefaultTableModel keyMapTableModel;
+    private final KeyMapTableModel keyMapTableModel;
     private final JBTable keyMapTable;
-    private final TableRowSorter<DefaultTableModel> keyMapTableRowSorter;
+    private final TableRowSorter<KeyMapTableModel> keyMapTableRowSorter;
     private final SearchTextField keyMapSearchTextField;
 
     private final JBTabbedPane tabbedPane;
 
-    private final DefaultTableModel actionMapTableModel;
+    private final ActionMapTableModel actionMapTableModel;
     private final JBTable actionMapTable;
-    private final TableRowSorter<DefaultTableModel> actionMapTableRowSorter;
+    private final TableRowSorter<ActionMapTableModel> actionMapTableRowSorter;
     private final SearchTextField actionMapSearchTextField;
 
+    private final ConflictTableModel conflictTableModel;
+
     private final DefaultComboBoxModel<Keymap> keymapsComboBoxModel;
     private final ComboBox<Keymap> keymapsComboBox;
 
     private final DefaultComboBoxModel<Keymap> otherKeymapsComboBoxModel;
     private final ComboBox<Keymap> otherKeymapsComboBox;
 
-    // Guards against re-entrant refresh() calls triggered by mutating the keymap combo box model.
-    private boolean refreshing;
+    private final JBCheckBox boundKeysOnlyCheckBox;
+    private final JBCheckBox overridesOnlyCheckBox;
+
+    // The table contents currently being computed in the background; superseded (cancelled) by every newer rebuild.
+    private CancellablePromise<RefreshResult> pendingRefresh;
+
+    // The snapshot and mode the tables currently show; patches are computed against them.
+    private KeymapSnapshot shownSnapshot;
+    private boolean shownBoundKeysOnly;
+    private boolean shownOverridesOnly;
+    private ConflictIndex shownConflicts;
+    // Tabs whose contents do not reflect the shown snapshot. Hidden tabs are only marked, and filled once selected.
+    private final BitSet staleTabs = new BitSet();
+    private CancellablePromise<RefreshResult> pendingFill;
+
+    // Changed action ids by keymap name, collected between debounced patches.
+    private final Map<String, Set<String>> changedActionIds = new ConcurrentHashMap<>();
+    // Changed action ids of the shown keymap that the tables do not reflect yet.
+    private final Set<String> unpatchedActionIds = new HashSet<>();
+    // Set when keymaps were added or removed, which takes a full refresh.
+    private volatile boolean keymapListChanged;
+    private CancellablePromise<PatchResult> pendingPatch;
+    private final Alarm keymapChangeAlarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, this);
+
+    /** Table contents computed off the EDT and swapped into the table models; only the filled tab's are non-null. */
+    private record RefreshResult(KeymapSnapshot snapshot,
+                                 boolean boundKeysOnly,
+                                 boolean overridesOnly,
+                                 KeyMapTableModel.Rows keyMapRows,
+                                 ActionMapTableModel.Rows actionMapRows,
+                                 ConflictIndex conflicts,
+                                 List<String> actionHistory) {
+    }
 
-    private record FirstKeyStrokeAndActionId(KeyStroke firstKeyStroke, String actionId) {
+    /**
+     * For the selected tab, the rows of changed actions or of the grid rows showing their old or new keystrokes,
+     * computed off the EDT; or a full refresh when actions were added or removed.
+     */
+    private record PatchResult(KeymapSnapshot snapshot,
+                               RefreshResult fullRefresh,
+                               KeyMapTableModel.Rows keyMapPatch,
+                               int[] keyMapRowIds,
+                               ActionMapTableModel.Rows actionMapPatch,
+                               int[] actions,
+                               ConflictIndex.Patch conflictPatch,
+                               List<String> actionHistory) {
     }
 
     static class KeymapListCellRenderer extends DefaultListCellRenderer {
@@ -85,28 +156,14 @@ public class DynaKeyMapToolWindow extends SimpleToolWindowPanel {
         tabbedPane = new JBTabbedPane();
 
         // Keymap tab.
-        keyMapTableModel = new DefaultTableModel(KEYMAP_COLUMNS, 0) {
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                return String.class;
-            }
-        };
+        keyMapTableModel = new KeyMapTableModel();
 
         keyMapTable = new JBTable(keyMapTableModel);
 
-        TableCellRenderer keyMapTableCellRenderer = new DefaultTableCellRenderer() {
-            @Override
-            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
-                JLabel label = (JLabel) super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
-                if (column == FIRST_KEYSTROKE_KEY || column == SECOND_KEYSTROKE_KEY) {
-                    String keyValue = (String) value;
-                    if (!keyValue.isEmpty()) {
-                        label.setText(String.format("<html>%s", kbdfy(keyValue)));
-                    }
-                }
-                return label;
-            }
-        };
+        KeyCapCellRenderer keyMapTableCellRenderer = new KeyCapCellRenderer();
+        for (int column = 0; column < keyMapTable.getColumnCount(); column++) {
+            keyMapTable.getColumnModel().getColumn(column).setCellRenderer(keyMapTableCellRenderer);
+        }
 
         keyMapTableRowSorter = new TableRowSorter<>(keyMapTableModel);
         keyMapTable.setRowSorter(keyMapTableRowSorter);
@@ -116,7 +173,6 @@ public class DynaKeyMapToolWindow extends SimpleToolWindowPanel {
             column.setMinWidth(KEYSTROKE_COLUMN_WIDTH);
             column.setWidth(KEYSTROKE_COLUMN_WIDTH);
             column.setMaxWidth(KEYSTROKE_COLUMN_WIDTH);
-            column.setCellRenderer(keyMapTableCellRenderer);
         }
 
         JTableHeader tableHeader = keyMapTable.getTableHeader();
@@ -150,16 +206,30 @@ public class DynaKeyMapToolWindow extends SimpleToolWindowPanel {
         otherKeymapsComboBox.setRenderer(keymapListCellRenderer);
         keymapsPanel.add(otherKeymapsComboBox);
 
+        JButton compareManyKeymapsButton = new JButton(AllIcons.Actions.ShowAsTree);
+        compareManyKeymapsButton.setToolTipText("Compare Several Keymaps");
+        compareManyKeymapsButton.addActionListener(e -> KeymapComparator.compareMany(project,
+                List.of(KeymapManagerEx.getInstanceEx().getAllKeymaps())));
+        keymapsPanel.add(compareManyKeymapsButton);
+
+        boundKeysOnlyCheckBox = new JBCheckBox("Bound keys only", PropertiesComponent.getInstance().getBoolean(BOUND_KEYS_ONLY_PROPERTY));
+        boundKeysOnlyCheckBox.setToolTipText("Show only the keys that carry a binding in the selected keymap");
+        boundKeysOnlyCheckBox.addActionListener(e -> {
+            PropertiesComponent.getInstance().setValue(BOUND_KEYS_ONLY_PROPERTY, boundKeysOnlyCheckBox.isSelected());
+            rebuild();
+        });
+        keymapsPanel.add(boundKeysOnlyCheckBox);
+
         toolbarPanel.addToLeft(keymapsPanel);
 
         keyMapSearchTextField = new SearchTextField();
-        keyMapSearchTextField.setToolTipText("Filter. NOTE: Text will match in hidden columns as well.");
-        keyMapSearchTextField.addKeyboardListener(searchFieldListener(keyMapSearchTextField, keyMapTableRowSorter));
+        keyMapSearchTextField.setToolTipText(SEARCH_TOOLTIP);
+        Runnable keyMapSearch = installSearch(keyMapSearchTextField, keyMapTable, keyMapTableRowSorter);
         toolbarPanel.addToCenter(keyMapSearchTextField);
 
         JButton searchButton = new JButton(AllIcons.General.Filter);
-        searchButton.setToolTipText("Filter. NOTE: Text will match in hidden columns as well.");
-        searchButton.addActionListener(e -> search(keyMapSearchTextField, keyMapTableRowSorter));
+        searchButton.setToolTipText(SEARCH_TOOLTIP);
+        searchButton.addActionListener(e -> keyMapSearch.run());
         toolbarPanel.addToRight(searchButton);
 
         keyMapTablePanel.addToTop(toolbarPanel);
@@ -168,17 +238,7 @@ public class DynaKeyMapToolWindow extends SimpleToolWindowPanel {
         // Action Map tab.
         BorderLayoutPanel actionMapTablePanel = new BorderLayoutPanel();
 
-        actionMapTableModel = new DefaultTableModel(ACTIONMAP_COLUMNS, 0) {
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                return String.class;
-            }
-
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        actionMapTableModel = new ActionMapTableModel();
 
         actionMapTable = new JBTable(actionMapTableModel) {
             @Override
@@ -203,6 +263,8 @@ public class DynaKeyMapToolWindow extends SimpleToolWindowPanel {
                     String actionId = actionMapTable.getValueAt(row, ACTION_ID_COLUMN).toString();
                     EditKeymapsDialog editKeymapsDialog = new EditKeymapsDialog(project, actionId, false);
                     editKeymapsDialog.setSize(600, 900);
+                    // Applied edits, including shortcuts removed from other actions to resolve conflicts, are
+                    // announced through KeymapManagerListener.shortcutsChanged and patched in from there.
                     editKeymapsDialog.show();
                 }
             }
@@ -213,31 +275,62 @@ public class DynaKeyMapToolWindow extends SimpleToolWindowPanel {
 
         BorderLayoutPanel actionMapToolbarPanel = new BorderLayoutPanel();
 
+        overridesOnlyCheckBox = new JBCheckBox("Overrides only", PropertiesComponent.getInstance().getBoolean(OVERRIDES_ONLY_PROPERTY));
+        overridesOnlyCheckBox.setToolTipText("Show only the actions the selected keymap binds itself instead of inheriting them from the keymap it is based on");
+        overridesOnlyCheckBox.addActionListener(e -> {
+            PropertiesComponent.getInstance().setValue(OVERRIDES_ONLY_PROPERTY, overridesOnlyCheckBox.isSelected());
+            rebuild();
+        });
+        actionMapToolbarPanel.addToLeft(overridesOnlyCheckBox);
+
         actionMapSearchTextField = new SearchTextField();
-        actionMapSearchTextField.setToolTipText("Search");
-        actionMapSearchTextField.addKeyboardListener(searchFieldListener(actionMapSearchTextField, actionMapTableRowSorter));
+        actionMapSearchTextField.setToolTipText(SEARCH_TOOLTIP);
+        Runnable actionMapSearch = installSearch(actionMapSearchTextField, actionMapTable, actionMapTableRowSorter);
         actionMapToolbarPanel.addToCenter(actionMapSearchTextField);
 
         JButton searchActionMapButton = new JButton(AllIcons.Actions.Find);
         searchActionMapButton.setToolTipText("Search");
-        searchActionMapButton.addActionListener(e -> search(actionMapSearchTextField, actionMapTableRowSorter));
+        searchActionMapButton.addActionListener(e -> actionMapSearch.run());
         actionMapToolbarPanel.addToRight(searchActionMapButton);
 
         actionMapTablePanel.addToTop(actionMapToolbarPanel);
         actionMapTablePanel.addToCenter(ScrollPaneFactory.createScrollPane(actionMapTable));
 
+        // Conflicts tab.
+        conflictTableModel = new ConflictTableModel();
+        JBTable conflictTable = new JBTable(conflictTableModel);
+        conflictTable.setRowSorter(new TableRowSorter<>(conflictTableModel));
+        conflictTable.getColumnModel().getColumn(ConflictTableModel.KIND_COLUMN).setMaxWidth(JBUI.scale(120));
+
         tabbedPane.addTab("Actions Map", actionMapTablePanel);
         tabbedPane.addTab("Keymap", keyMapTablePanel);
-        tabbedPane.setSelectedIndex(0);
-        tabbedPane.setToolTipTextAt(1, "Active Keymap: " + keymapManager.getActiveKeymap().getName());
+        tabbedPane.addTab("Conflicts", ScrollPaneFactory.createScrollPane(conflictTable));
+        tabbedPane.setToolTipTextAt(CONFLICTS_TAB, "Shortcuts bound to several actions, and keystrokes that shadow chords starting with them");
+        tabbedPane.setSelectedIndex(ACTION_MAP_TAB);
+        tabbedPane.setToolTipTextAt(KEYMAP_TAB, "Active Keymap: " + keymapManager.getActiveKeymap().getName());
+        tabbedPane.addChangeListener(e -> fillSelectedTab());
 
         setContent(tabbedPane);
 
         wireTitleActions();
 
-        refresh();
+        // The tables are first filled by refresh(), once the tool window is shown.
+        keymapsComboBox.addActionListener(e -> rebuild());
 
-        keymapsComboBox.addActionListener(e -> refresh());
+        subscribeToKeymapChanges();
+    }
+
+    @Override
+    public void dispose() {
+        if (pendingRefresh != null) {
+            pendingRefresh.cancel();
+        }
+        if (pendingPatch != null) {
+            pendingPatch.cancel();
+        }
+        if (pendingFill != null) {
+            pendingFill.cancel();
+        }
     }
 
     private void wireTitleActions() {
@@ -252,46 +345,192 @@ public class DynaKeyMapToolWindow extends SimpleToolWindowPanel {
             generatePdfAction.setDynaKeyMapToolWindow(this);
         }
 
+        GenerateDynaKeyMapGridPdfAction generateGridPdfAction = (GenerateDynaKeyMapGridPdfAction) actionManager.getAction("GenerateDynaKeyMapGridPdf");
+        if (generateGridPdfAction != null) {
+            generateGridPdfAction.setDynaKeyMapToolWindow(this);
+        }
+
+        ExportAllKeymapsAction exportAllKeymapsAction = (ExportAllKeymapsAction) actionManager.getAction("ExportAllDynaKeyMaps");
+        exportAllKeymapsAction.setDynaKeyMapToolWindow(this);
+
         DynaKeyMapRefreshAction refreshAction = (DynaKeyMapRefreshAction) actionManager.getAction("DynaKeyMapRefresh");
         refreshAction.setDynaKeyMapToolWindow(this);
 
+        ShowTimingsAction showTimingsAction = (ShowTimingsAction) actionManager.getAction("DynaKeyMapShowTimings");
+
         Objects.requireNonNull(dynaKeyMapToolWindow);
+        List<AnAction> titleActions = new ArrayList<>();
+        titleActions.add(generateHtmlAction);
         if (generatePdfAction != null) {
-            dynaKeyMapToolWindow.setTitleActions(List.of(generateHtmlAction, generatePdfAction, refreshAction));
-        } else {
-            dynaKeyMapToolWindow.setTitleActions(List.of(generateHtmlAction, refreshAction));
+            titleActions.add(generatePdfAction);
         }
+        if (generateGridPdfAction != null) {
+            titleActions.add(generateGridPdfAction);
+        }
+        titleActions.add(exportAllKeymapsAction);
+        titleActions.add(showTimingsAction);
+        titleActions.add(refreshAction);
+        dynaKeyMapToolWindow.setTitleActions(titleActions);
     }
 
-    private KeyAdapter searchFieldListener(SearchTextField searchTextField, TableRowSorter<DefaultTableModel> sorter) {
-        return new KeyAdapter() {
+    // ---- Search ----------------------------------------------------------
+
+    /**
+     * Filters the table as the user types, debounced, and whenever columns are hidden or shown. Returns the search
+     * to run immediately.
+     */
+    private <M extends FilterableTableModel> Runnable installSearch(SearchTextField searchTextField, JTable table, TableRowSorter<M> sorter) {
+        Alarm searchAlarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, this);
+        Runnable search = () -> {
+            searchAlarm.cancelAllRequests();
+            search(searchTextField, table, sorter);
+        };
+        searchTextField.addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(@NotNull DocumentEvent e) {
+                searchAlarm.cancelAllRequests();
+                searchAlarm.addRequest(search, SEARCH_DEBOUNCE_MS);
+            }
+        });
+        searchTextField.addKeyboardListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
                 if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
                     searchTextField.setText("");
-                    search(searchTextField, sorter);
+                    search.run();
                 } else if (e.getKeyCode() == KeyEvent.VK_ENTER) {
-                    search(searchTextField, sorter);
+                    search.run();
                 }
             }
-        };
-    }
+        });
+        table.getColumnModel().addColumnModelListener(new TableColumnModelListener() {
+            @Override
+            public void columnAdded(TableColumnModelEvent e) {
+                search.run();
+            }
 
-    // ---- Refresh ---------------------------------------------------------
+            @Override
+            public void columnRemoved(TableColumnModelEvent e) {
+                search.run();
+            }
 
-    void refresh() {
-        if (refreshing) {
+            @Override
+            public void columnMoved(TableColumnModelEvent e) {
+            }
+
+            @Override
+            public void columnMarginChanged(ChangeEvent e) {
+            }
+
+            @Override
+            public void columnSelectionChanged(ListSelectionEvent e) {
+            }
+        });
+        return search;
+    }
+
+    /**
+     * Filters by a {@link KeyStrokeQuery} when every term of the text starts with a stroke selector (such as
+     * {@code first:ctrl+alt+*}), by a {@link TextQuery} otherwise.
+     */
+    private static <M extends FilterableTableModel> void search(SearchTextField searchTextField, JTable table, TableRowSorter<M> tableRowSorter) {
+        String text = searchTextField.getText();
+        JComponent textEditor = searchTextField.getTextEditor();
+        textEditor.putClientProperty("JComponent.outline", null);
+        if (text.isBlank()) {
+            tableRowSorter.setRowFilter(null);
+            return;
+        }
+        M model = tableRowSorter.getModel();
+        if (KeyStrokeQuery.isQuery(text)) {
+            KeyStrokeQuery keyStrokeQuery;
+            try {
+                keyStrokeQuery = KeyStrokeQuery.parse(text);
+            } catch (IllegalArgumentException e) {
+                // Keep the current filter while the query is being typed; flag the field instead.
+                textEditor.putClientProperty("JComponent.outline", "error");
+                return;
+            }
+            tableRowSorter.setRowFilter(new RowFilter<M, Integer>() {
+                @Override
+                public boolean include(Entry<? extends M, ? extends Integer> entry) {
+                    return model.matches(entry.getIdentifier(), keyStrokeQuery);
+                }
+            });
             return;
         }
-        refreshing = true;
-        try {
-            doRefresh();
-        } finally {
-            refreshing = false;
+        boolean[] visibleColumns = new boolean[table.getModel().getColumnCount()];
+        for (TableColumn column : Collections.list(table.getColumnModel().getColumns())) {
+            visibleColumns[column.getModelIndex()] = true;
         }
+        TextQuery query = new TextQuery(text);
+        tableRowSorter.setRowFilter(new RowFilter<M, Integer>() {
+            @Override
+            public boolean include(Entry<? extends M, ? extends Integer> entry) {
+                return model.matches(entry.getIdentifier(), query, visibleColumns);
+            }
+        });
+    }
+
+    // ---- Refresh ---------------------------------------------------------
+
+    private void subscribeToKeymapChanges() {
+        ApplicationManager.getApplication().getMessageBus().connect(this).subscribe(KeymapManagerListener.TOPIC, new KeymapManagerListener() {
+            @Override
+            public void keymapAdded(@NotNull Keymap keymap) {
+                keymapListChanged = true;
+                scheduleKeymapChange();
+            }
+
+            @Override
+            public void keymapRemoved(@NotNull Keymap keymap) {
+                keymapListChanged = true;
+                scheduleKeymapChange();
+            }
+
+            @Override
+            public void activeKeymapChanged(Keymap keymap) {
+                ApplicationManager.getApplication().invokeLater(() -> {
+                    // Only the "(active)" markers change.
+                    keymapsComboBox.repaint();
+                    otherKeymapsComboBox.repaint();
+                    if (keymap != null) {
+                        tabbedPane.setToolTipTextAt(KEYMAP_TAB, "Active Keymap: " + keymap.getName());
+                    }
+                }, ModalityState.any());
+            }
+
+            @Override
+            public void shortcutsChanged(@NotNull Keymap keymap, @NotNull Collection<String> actionIds, boolean fromSettings) {
+                DynaKeyMapToolWindow.this.shortcutsChanged(keymap, actionIds);
+            }
+        });
     }
 
-    private void doRefresh() {
+    private void shortcutsChanged(Keymap keymap, Collection<String> actionIds) {
+        changedActionIds.computeIfAbsent(keymap.getName(), k -> ConcurrentHashMap.newKeySet()).addAll(actionIds);
+        scheduleKeymapChange();
+    }
+
+    /** Updates the tables on the EDT once no keymap change has been notified for the debounce window. */
+    private void scheduleKeymapChange() {
+        keymapChangeAlarm.cancelAllRequests();
+        keymapChangeAlarm.addRequest(() -> {
+            if (keymapListChanged) {
+                keymapListChanged = false;
+                refresh();
+            } else {
+                patch();
+            }
+        }, KEYMAP_CHANGE_DEBOUNCE_MS, ModalityState.any());
+    }
+
+    void refresh() {
+        reloadKeymapComboBoxes();
+        rebuild();
+    }
+
+    private void reloadKeymapComboBoxes() {
         Keymap selectedKeymap = (Keymap) keymapsComboBoxModel.getSelectedItem();
         Keymap otherSelectedKeymap = (Keymap) otherKeymapsComboBoxModel.getSelectedItem();
 
@@ -312,173 +551,399 @@ public class DynaKeyMapToolWindow extends SimpleToolWindowPanel {
             otherSelectedKeymap = keymapManager.getActiveKeymap();
         }
         otherKeymapsComboBoxModel.setSelectedItem(otherSelectedKeymap);
+    }
 
-        keyMapTableModel.setRowCount(0);
-        actionMapTableModel.setRowCount(0);
+    /**
+     * Recomputes the selected tab for the selected keymap in a non-blocking read action; the other tabs are filled
+     * when they are next selected. Mutating the keymap combo box model re-enters here through its action listener;
+     * each call simply supersedes the previous one.
+     */
+    private void rebuild() {
+        if (pendingRefresh != null) {
+            pendingRefresh.cancel();
+        }
+        if (pendingPatch != null) {
+            pendingPatch.cancel();
+        }
+        if (pendingFill != null) {
+            pendingFill.cancel();
+        }
+        // The rebuilt tables reflect every change so far.
+        changedActionIds.clear();
+        unpatchedActionIds.clear();
+        Keymap selectedKeymap = selectedKeymap(keymapsComboBoxModel.getSelectedItem());
+        boolean boundKeysOnly = boundKeysOnlyCheckBox.isSelected();
+        boolean overridesOnly = overridesOnlyCheckBox.isSelected();
+        int tab = tabbedPane.getSelectedIndex();
+        if (shownSnapshot == null) {
+            // First fill: paint the stored copy of the snapshot right away, then validate it against the live keymap.
+            pendingRefresh = ReadAction.nonBlocking(() -> {
+                        KeymapSnapshot stored = KeymapSnapshotStore.read(selectedKeymap.getName(), KeymapSnapshotStore.fingerprint(selectedKeymap));
+                        return stored == null ? null : computeRefresh(stored, boundKeysOnly, overridesOnly, tab);
+                    })
+                    .expireWith(this)
+                    .finishOnUiThread(ModalityState.stateForComponent(tabbedPane), stored -> {
+                        if (stored != null) {
+                            applyRefresh(stored);
+                        }
+                        refreshLive(selectedKeymap, boundKeysOnly, overridesOnly, tab, true, stored == null ? null : stored.snapshot());
+                    })
+                    .submit(AppExecutorUtil.getAppExecutorService());
+            return;
+        }
+        refreshLive(selectedKeymap, boundKeysOnly, overridesOnly, tab, false, null);
+    }
 
-        ActionManager actionManager = ActionManager.getInstance();
+    /**
+     * What a live refresh found.
+     *
+     * @param refresh     the tab contents, or {@code null} if the shown stored copy has the same content
+     * @param store       the snapshot to write to the {@link KeymapSnapshotStore}, or {@code null} if there is none
+     * @param fingerprint the fingerprint to store it under
+     */
+    private record LiveRefresh(RefreshResult refresh, KeymapSnapshot store, long fingerprint) {
+    }
 
-        populateKeyMapTable(selectedKeymap, actionManager);
-        populateActionMapTable(KeymapActions.collect(selectedKeymap, actionManager));
-    }
-
-    private void populateKeyMapTable(Keymap selectedKeymap, ActionManager actionManager) {
-        Map<KeyStroke, List<String>> keyStrokeToActionIdMap = new HashMap<>();
-        Map<KeyStroke, List<FirstKeyStrokeAndActionId>> secondStrokeToFirstKeyStrokeAndActionIdMap = new HashMap<>();
-        for (String actionId : selectedKeymap.getActionIdList()) {
-            for (Shortcut shortcut : selectedKeymap.getShortcuts(actionId)) {
-                if (shortcut instanceof KeyboardShortcut keyboardShortcut) {
-                    KeyStroke firstKeyStroke = keyboardShortcut.getFirstKeyStroke();
-                    keyStrokeToActionIdMap.computeIfAbsent(firstKeyStroke, k -> new ArrayList<>()).add(actionId);
-                    KeyStroke secondKeyStroke = keyboardShortcut.getSecondKeyStroke();
-                    if (secondKeyStroke != null) {
-                        secondStrokeToFirstKeyStrokeAndActionIdMap.computeIfAbsent(secondKeyStroke, k -> new ArrayList<>())
-                                .add(new FirstKeyStrokeAndActionId(firstKeyStroke, actionId));
+    /**
+     * Swaps in the live snapshot. On the first fill the stored copy is rewritten unless it has the same content as the
+     * live snapshot, in which case the tables showing it are left as they are.
+     */
+    private void refreshLive(Keymap selectedKeymap, boolean boundKeysOnly, boolean overridesOnly, int tab, boolean firstFill, KeymapSnapshot stored) {
+        pendingRefresh = ReadAction.nonBlocking(() -> {
+                    KeymapSnapshot snapshot = KeymapSnapshots.getInstance().get(selectedKeymap);
+                    boolean unchanged = stored != null && KeymapSnapshotStore.sameContent(stored, snapshot);
+                    // Only decided here: the read action restarts after every write action, so it must not write.
+                    boolean store = firstFill && !unchanged;
+                    return new LiveRefresh(unchanged ? null : computeRefresh(snapshot, boundKeysOnly, overridesOnly, tab),
+                            store ? snapshot : null,
+                            store ? KeymapSnapshotStore.fingerprint(selectedKeymap) : 0);
+                })
+                .expireWith(this)
+                .finishOnUiThread(ModalityState.stateForComponent(tabbedPane), live -> {
+                    if (live.store() != null) {
+                        AppExecutorUtil.getAppExecutorService().execute(() -> KeymapSnapshotStore.write(live.store(), live.fingerprint()));
+                    }
+                    if (live.refresh() != null) {
+                        applyRefresh(live.refresh());
+                    } else {
+                        patchLater();
                     }
+                })
+                .submit(AppExecutorUtil.getAppExecutorService());
+    }
+
+    /** Computes the contents of just the given tab; the other tabs' contents are left {@code null}. */
+    private static RefreshResult computeRefresh(KeymapSnapshot snapshot, boolean boundKeysOnly, boolean overridesOnly, int tab) {
+        KeyMapTableModel.Rows keyMapRows = null;
+        ActionMapTableModel.Rows actionMapRows = null;
+        ConflictIndex conflicts = null;
+        switch (tab) {
+            case KEYMAP_TAB -> {
+                try (Timings.Span span = Timings.start(Timings.Phase.GRID_INDEX, snapshot.keymapName())) {
+                    keyMapRows = KeyMapTableModel.Rows.build(snapshot, boundKeysOnly);
                 }
             }
-        }
-
-        for (String key : ALL_KEYS) {
-            // First-keystroke row.
-            int maxRowsInARow = 1;
-            Vector<String> row = new Vector<>();
-            row.add(key);
-            row.add("");
-            for (String mod : MODIFIERS) {
-                KeyStroke keyStroke = Shortcuts.toKeyStroke(mod, key);
-                List<String> actionIds = keyStrokeToActionIdMap.get(keyStroke);
-                if (actionIds != null && !actionIds.isEmpty()) {
-                    Collections.sort(actionIds);
-                    row.add(buildActionsHtmlForFirst(actionIds, Shortcuts.keyStrokeDisplay(keyStroke), actionManager));
-                    maxRowsInARow = Math.max(maxRowsInARow, actionIds.size());
-                } else {
-                    row.add("");
+            case ACTION_MAP_TAB -> {
+                try (Timings.Span span = Timings.start(Timings.Phase.ACTION_MAP_ROWS, snapshot.keymapName())) {
+                    actionMapRows = ActionMapTableModel.Rows.build(snapshot, overridesOnly);
                 }
             }
-            addRowAndSetHeight(keyMapTableModel, keyMapTable, row, maxRowsInARow);
-
-            // Second-keystroke (chord) row, only added when there is at least one chord ending on this key.
-            maxRowsInARow = 1;
-            row = new Vector<>();
-            row.add("");
-            row.add(key);
-            boolean addRowForSecondStroke = false;
-            for (String mod : MODIFIERS) {
-                KeyStroke secondKeyStroke = Shortcuts.toKeyStroke(mod, key);
-                List<FirstKeyStrokeAndActionId> pairs = secondStrokeToFirstKeyStrokeAndActionIdMap.get(secondKeyStroke);
-                if (pairs != null && !pairs.isEmpty()) {
-                    addRowForSecondStroke = true;
-                    row.add(buildActionsHtmlForChord(pairs, Shortcuts.keyStrokeDisplay(secondKeyStroke), actionManager));
-                    maxRowsInARow = Math.max(maxRowsInARow, pairs.size());
-                } else {
-                    row.add("");
+            case CONFLICTS_TAB -> {
+                try (Timings.Span span = Timings.start(Timings.Phase.CONFLICT_INDEX, snapshot.keymapName())) {
+                    conflicts = ConflictIndex.build(snapshot);
                 }
             }
-            if (addRowForSecondStroke) {
-                addRowAndSetHeight(keyMapTableModel, keyMapTable, row, maxRowsInARow);
+            default -> {
             }
         }
+        return new RefreshResult(snapshot, boundKeysOnly, overridesOnly, keyMapRows, actionMapRows, conflicts, actionHistory(snapshot));
     }
 
-    private void populateActionMapTable(KeymapActions actions) {
-        List<String> actionHistory = actions.bound().keySet().stream().filter(s -> s.length() > 1).toList();
-        keyMapSearchTextField.setHistory(actionHistory);
-        keyMapSearchTextField.setHistorySize(actionHistory.size());
+    private static List<String> actionHistory(KeymapSnapshot snapshot) {
+        return snapshot.actions().bound().keySet().stream().filter(s -> s.length() > 1).toList();
+    }
 
-        for (Map.Entry<String, KeymapActions.ActionIdAndShortCuts> entry : actions.bound().entrySet()) {
-            String actionName = entry.getKey();
-            KeymapActions.ActionIdAndShortCuts actionIdAndShortCuts = entry.getValue();
-            for (Shortcut shortcut : actionIdAndShortCuts.shortcuts()) {
-                if (shortcut instanceof KeyboardShortcut keyboardShortcut) {
-                    Vector<String> row = new Vector<>();
-                    row.add(actionName);
-                    row.add(Shortcuts.bracketed(keyboardShortcut.getFirstKeyStroke()));
-                    KeyStroke secondKeyStroke = keyboardShortcut.getSecondKeyStroke();
-                    row.add(secondKeyStroke == null ? "" : Shortcuts.bracketed(secondKeyStroke));
-                    row.add(actionIdAndShortCuts.actionId());
-                    actionMapTableModel.addRow(row);
+    private void applyRefresh(RefreshResult result) {
+        if (pendingFill != null) {
+            pendingFill.cancel();
+        }
+        shownSnapshot = result.snapshot();
+        shownBoundKeysOnly = result.boundKeysOnly();
+        shownOverridesOnly = result.overridesOnly();
+        markTabsStale();
+        fillTab(result);
+        setActionHistory(result.actionHistory());
+        // The user may have switched tabs while the refresh was computed.
+        fillSelectedTab();
+        patchLater();
+    }
+
+    /**
+     * Schedules a patch for the changes {@link #patch} set aside while a refresh was in flight: the refresh may have
+     * read the keymap before they were made.
+     */
+    private void patchLater() {
+        if (!unpatchedActionIds.isEmpty()) {
+            scheduleKeymapChange();
+        }
+    }
+
+    /** Swaps whichever tab contents the result carries into their table models. */
+    private void fillTab(RefreshResult result) {
+        String keymapName = result.snapshot().keymapName();
+        KeyMapTableModel.Rows keyMapRows = result.keyMapRows();
+        if (keyMapRows != null) {
+            try (Timings.Span span = Timings.start(Timings.Phase.TABLE_FILL, "Keymap")) {
+                keyMapTableModel.setRows(keyMapRows);
+            }
+            try (Timings.Span span = Timings.start(Timings.Phase.ROW_HEIGHTS, keymapName)) {
+                // Single-line rows take the table-wide height; only taller rows need a per-row entry.
+                keyMapTable.setRowHeight(2 * ROW_LINE_HEIGHT);
+                for (int row = 0; row < keyMapRows.size(); row++) {
+                    if (keyMapRows.lines()[row] > 1) {
+                        keyMapTable.setRowHeight(row, rowHeight(keyMapRows.lines()[row]));
+                    }
                 }
             }
+            staleTabs.clear(KEYMAP_TAB);
+        }
+        if (result.actionMapRows() != null) {
+            try (Timings.Span span = Timings.start(Timings.Phase.TABLE_FILL, "Actions Map")) {
+                actionMapTableModel.setRows(result.actionMapRows());
+            }
+            staleTabs.clear(ACTION_MAP_TAB);
+        }
+        if (result.conflicts() != null) {
+            shownConflicts = result.conflicts();
+            try (Timings.Span span = Timings.start(Timings.Phase.TABLE_FILL, "Conflicts")) {
+                conflictTableModel.setIndex(shownConflicts);
+            }
+            staleTabs.clear(CONFLICTS_TAB);
+            setConflictCount();
         }
+    }
 
-        actionMapSearchTextField.setHistory(actionHistory);
-        actionMapSearchTextField.setHistorySize(actionHistory.size());
+    /** Marks every tab as not reflecting the shown snapshot; each is filled again when it is next selected. */
+    private void markTabsStale() {
+        staleTabs.set(0, tabbedPane.getTabCount());
+        shownConflicts = null;
+        setConflictCount();
+    }
 
-        for (Map.Entry<String, String> entry : actions.unbound().entrySet()) {
-            Vector<String> row = new Vector<>();
-            row.add(entry.getKey());
-            row.add("");
-            row.add("");
-            row.add(entry.getValue());
-            actionMapTableModel.addRow(row);
+    /**
+     * Fills the selected tab from the shown snapshot if it went stale while hidden. A refresh or patch in flight
+     * fills it when it lands instead.
+     */
+    private void fillSelectedTab() {
+        int tab = tabbedPane.getSelectedIndex();
+        if (shownSnapshot == null || !staleTabs.get(tab)
+                || (pendingRefresh != null && !pendingRefresh.isDone())
+                || (pendingPatch != null && !pendingPatch.isDone())) {
+            return;
         }
+        if (pendingFill != null) {
+            pendingFill.cancel();
+        }
+        KeymapSnapshot snapshot = shownSnapshot;
+        boolean boundKeysOnly = shownBoundKeysOnly;
+        boolean overridesOnly = shownOverridesOnly;
+        pendingFill = ReadAction.nonBlocking(() -> computeRefresh(snapshot, boundKeysOnly, overridesOnly, tab))
+                .expireWith(this)
+                .finishOnUiThread(ModalityState.stateForComponent(tabbedPane), result -> {
+                    if (result.snapshot() == shownSnapshot && result.boundKeysOnly() == shownBoundKeysOnly
+                            && result.overridesOnly() == shownOverridesOnly) {
+                        fillTab(result);
+                    }
+                })
+                .submit(AppExecutorUtil.getAppExecutorService());
     }
 
-    private void search(SearchTextField searchTextField, TableRowSorter<DefaultTableModel> tableRowSorter) {
-        String text = searchTextField.getText();
-        if (text.isEmpty()) {
-            tableRowSorter.setRowFilter(null);
-        } else {
-            tableRowSorter.setRowFilter(RowFilter.regexFilter("(?i)" + Pattern.quote(text)));
+    private static int rowHeight(int lines) {
+        return (Math.max(lines, 1) + 1) * ROW_LINE_HEIGHT;
+    }
+
+    /**
+     * Brings the selected tab up to date with the shortcut changes collected for the shown keymap (or the keymaps it
+     * is based on), rebuilding only the affected rows; the hidden tabs are marked stale. Runs on the EDT, debounced.
+     */
+    private void patch() {
+        Keymap selectedKeymap = selectedKeymap(keymapsComboBoxModel.getSelectedItem());
+        for (Keymap keymap = selectedKeymap; keymap != null; keymap = keymap.getParent()) {
+            Set<String> actionIds = changedActionIds.remove(keymap.getName());
+            if (actionIds != null) {
+                unpatchedActionIds.addAll(actionIds);
+            }
+        }
+        changedActionIds.clear();
+        // Without shown tables, or with a rebuild in flight, there is nothing to patch.
+        if (unpatchedActionIds.isEmpty() || shownSnapshot == null || (pendingRefresh != null && !pendingRefresh.isDone())) {
+            return;
+        }
+        if (pendingPatch != null) {
+            pendingPatch.cancel();
+        }
+        if (pendingFill != null) {
+            pendingFill.cancel();
         }
+        KeymapSnapshot snapshot = shownSnapshot;
+        ConflictIndex conflicts = shownConflicts;
+        boolean boundKeysOnly = shownBoundKeysOnly;
+        boolean overridesOnly = shownOverridesOnly;
+        int tab = tabbedPane.getSelectedIndex();
+        // A stale tab has nothing to patch; it is filled from the patched snapshot.
+        int patchedTab = staleTabs.get(tab) ? -1 : tab;
+        Set<String> actionIds = Set.copyOf(unpatchedActionIds);
+        pendingPatch = ReadAction.nonBlocking(() -> computePatch(snapshot, conflicts, KeymapSnapshots.getInstance().get(selectedKeymap), actionIds,
+                        boundKeysOnly, overridesOnly, patchedTab))
+                .expireWith(this)
+                .finishOnUiThread(ModalityState.stateForComponent(tabbedPane), this::applyPatch)
+                .submit(AppExecutorUtil.getAppExecutorService());
     }
 
-    // ---- Key map table cell rendering helpers ----------------------------
+    private static PatchResult computePatch(KeymapSnapshot shown, ConflictIndex shownConflicts, KeymapSnapshot snapshot, Set<String> actionIds,
+                                            boolean boundKeysOnly, boolean overridesOnly, int tab) {
+        // A patched snapshot keeps its action table; a new one means actions came or went (or a stored copy is shown).
+        if (snapshot.actionTable() != shown.actionTable()) {
+            return new PatchResult(snapshot, computeRefresh(snapshot, boundKeysOnly, overridesOnly, tab), null, null, null, null, null, null);
+        }
 
-    private static String buildActionsHtmlForFirst(List<String> actionIds, String keyStrokeLabel, ActionManager actionManager) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < actionIds.size(); i++) {
-            sb.append(i == 0 ? "<html>" : "<br/>");
-            sb.append("<nobr>");
-            sb.append(String.format("<code>[ %s ]</code> - ", keyStrokeLabel));
-            sb.append(Shortcuts.actionDisplayName(actionManager, actionIds.get(i)));
-            sb.append("</nobr>");
+        int[] actions = actionIds.stream().mapToInt(snapshot.actionTable()::indexOf).filter(action -> action >= 0).sorted().toArray();
+        int[] keyMapRowIds = null;
+        if (tab == KEYMAP_TAB) {
+            Set<Integer> rowIds = new TreeSet<>();
+            for (String actionId : actionIds) {
+                for (KeymapSnapshot version : List.of(shown, snapshot)) {
+                    for (Shortcut shortcut : version.shortcuts().getOrDefault(actionId, Shortcut.EMPTY_ARRAY)) {
+                        if (shortcut instanceof KeyboardShortcut keyboardShortcut) {
+                            KeyMapTableModel.Rows.addRowIds(keyboardShortcut, boundKeysOnly, rowIds);
+                        }
+                    }
+                }
+            }
+            keyMapRowIds = rowIds.stream().mapToInt(Integer::intValue).toArray();
         }
-        return sb.toString();
+
+        return new PatchResult(snapshot,
+                null,
+                tab == KEYMAP_TAB ? KeyMapTableModel.Rows.forRows(snapshot, boundKeysOnly, keyMapRowIds) : null,
+                keyMapRowIds,
+                // Rows of actions that stopped being overrides are dropped, those that became one are added.
+                tab == ACTION_MAP_TAB ? ActionMapTableModel.Rows.forActions(snapshot, ActionMapTableModel.Rows.actions(snapshot, actions, overridesOnly)) : null,
+                actions,
+                tab == CONFLICTS_TAB ? shownConflicts.patch(snapshot, actionIds) : null,
+                actionHistory(snapshot));
     }
 
-    private static String buildActionsHtmlForChord(List<FirstKeyStrokeAndActionId> pairs, String secondStrokeLabel, ActionManager actionManager) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < pairs.size(); i++) {
-            sb.append(i == 0 ? "<html>" : "<br/>");
-            FirstKeyStrokeAndActionId pair = pairs.get(i);
-            sb.append("<nobr>");
-            sb.append(String.format("<code>[ %s ]</code> ", Shortcuts.keyStrokeDisplay(pair.firstKeyStroke())));
-            sb.append(String.format("<code>[ %s ]</code> - ", secondStrokeLabel));
-            sb.append(Shortcuts.actionDisplayName(actionManager, pair.actionId()));
-            sb.append("</nobr>");
+    private void applyPatch(PatchResult result) {
+        unpatchedActionIds.clear();
+        if (result.fullRefresh() != null) {
+            applyRefresh(result.fullRefresh());
+            return;
+        }
+        try (Timings.Span span = Timings.start(Timings.Phase.TABLE_PATCH, result.snapshot().keymapName())) {
+            applyTablePatch(result);
         }
-        return sb.toString();
+        setActionHistory(result.actionHistory());
+        fillSelectedTab();
     }
 
-    private static void addRowAndSetHeight(DefaultTableModel model, JBTable table, Vector<String> row, int linesPerCellMax) {
-        model.addRow(row);
-        int lastRow = model.getRowCount() - 1;
-        table.setRowHeight(lastRow, (linesPerCellMax + 1) * ROW_LINE_HEIGHT);
+    private void applyTablePatch(PatchResult result) {
+        shownSnapshot = result.snapshot();
+        boolean keyMapFresh = result.keyMapPatch() != null;
+        boolean actionMapFresh = result.actionMapPatch() != null;
+        ConflictIndex.Patch conflictPatch = result.conflictPatch();
+        markTabsStale();
+
+        if (keyMapFresh) {
+            keyMapTableModel.patchRows(result.keyMapPatch(), result.keyMapRowIds());
+            KeyMapTableModel.Rows keyMapRows = keyMapTableModel.getRows();
+            for (int rowId : result.keyMapRowIds()) {
+                int row = keyMapRows.indexOf(rowId);
+                if (row >= 0) {
+                    keyMapTable.setRowHeight(row, rowHeight(keyMapRows.lines()[row]));
+                }
+            }
+            staleTabs.clear(KEYMAP_TAB);
+        }
+        if (actionMapFresh) {
+            actionMapTableModel.patchRows(result.actionMapPatch(), result.actions());
+            staleTabs.clear(ACTION_MAP_TAB);
+        }
+        if (conflictPatch != null) {
+            shownConflicts = conflictPatch.index();
+            conflictTableModel.patchRows(conflictPatch);
+            staleTabs.clear(CONFLICTS_TAB);
+            setConflictCount();
+        }
     }
 
-    private static String kbdfy(String keys) {
-        return KEY_MATCHER.matcher(keys).replaceAll("<nobr><code>[ $1 ]</code></nobr>").trim();
+    private void setConflictCount() {
+        tabbedPane.setTitleAt(CONFLICTS_TAB, staleTabs.get(CONFLICTS_TAB) ? "Conflicts" : "Conflicts (" + conflictTableModel.getRowCount() + ")");
+    }
+
+    private void setActionHistory(List<String> actionHistory) {
+        keyMapSearchTextField.setHistory(actionHistory);
+        keyMapSearchTextField.setHistorySize(actionHistory.size());
+        actionMapSearchTextField.setHistory(actionHistory);
+        actionMapSearchTextField.setHistorySize(actionHistory.size());
     }
 
     // ---- Title bar actions -----------------------------------------------
 
     public void generateHtml() {
-        ApplicationManager.getApplication().invokeLater(() -> {
-            Object label = keymapsComboBoxModel.getSelectedItem();
-            Keymap selectedKeymap = selectedKeymap(label);
-            HtmlExporter.export(selectedKeymap, label, keyMapTableModel);
-        });
+        Object label = keymapsComboBoxModel.getSelectedItem();
+        withKeyMapTable(() -> HtmlExporter.export(project, selectedKeymap(label), label, keyMapTableModel.getRows()));
     }
 
     public void generatePdf() {
-        ApplicationManager.getApplication().invokeLater(() -> {
-            Object label = keymapsComboBoxModel.getSelectedItem();
-            PdfExporter.export(selectedKeymap(label), label);
+        Object label = keymapsComboBoxModel.getSelectedItem();
+        PdfExporter.export(project, selectedKeymap(label), label);
+    }
+
+    /** Prints the Keymap grid as the Keymap tab shows it: its rows in their sorted order, less those filtered out. */
+    public void generateGridPdf() {
+        Object label = keymapsComboBoxModel.getSelectedItem();
+        withKeyMapTable(() -> {
+            int[] shownRows = new int[keyMapTable.getRowCount()];
+            for (int row = 0; row < shownRows.length; row++) {
+                shownRows[row] = keyMapTable.convertRowIndexToModel(row);
+            }
+            PdfGridExporter.export(project, label, keyMapTableModel.getRows(), shownRows);
         });
     }
 
+    /**
+     * Runs {@code export} once the Keymap tab holds the grid of the shown snapshot, filling the tab first (off the EDT,
+     * as {@link #fillSelectedTab} would) if it is stale. Its search filter then applies to the filled rows.
+     */
+    private void withKeyMapTable(Runnable export) {
+        KeymapSnapshot snapshot = shownSnapshot;
+        if (snapshot == null || !staleTabs.get(KEYMAP_TAB)) {
+            export.run();
+            return;
+        }
+        boolean boundKeysOnly = shownBoundKeysOnly;
+        boolean overridesOnly = shownOverridesOnly;
+        ReadAction.nonBlocking(() -> computeRefresh(snapshot, boundKeysOnly, overridesOnly, KEYMAP_TAB))
+                .expireWith(this)
+                .finishOnUiThread(ModalityState.nonModal(), result -> {
+                    if (result.snapshot() != shownSnapshot || result.boundKeysOnly() != shownBoundKeysOnly) {
+                        // A refresh or patch landed meanwhile; start over from what is shown now.
+                        withKeyMapTable(export);
+                        return;
+                    }
+                    if (staleTabs.get(KEYMAP_TAB)) {
+                        fillTab(result);
+                    }
+                    export.run();
+                })
+                .submit(AppExecutorUtil.getAppExecutorService());
+    }
+
+    public void exportAllKeymaps() {
+        BatchExporter.exportAll(project, boundKeysOnlyCheckBox.isSelected());
+    }
+
     private static Keymap selectedKeymap(Object comboSelection) {
         return (comboSelection instanceof Keymap keymap) ? keymap : KeymapManager.getInstance().getActiveKeymap();
     }
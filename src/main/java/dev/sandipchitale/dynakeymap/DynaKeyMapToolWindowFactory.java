@@ -5,6 +5,7 @@ import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowFactory;
 import com.intellij.ui.content.Content;
 import com.intellij.ui.content.ContentFactory;
+import com.intellij.util.ui.update.UiNotifyConnector;
 import org.jetbrains.annotations.NotNull;
 
 public class DynaKeyMapToolWindowFactory implements ToolWindowFactory {
@@ -13,6 +14,9 @@ public class DynaKeyMapToolWindowFactory implements ToolWindowFactory {
         DynaKeyMapToolWindow dynaKeyMapToolWindow = new DynaKeyMapToolWindow(project);
         ContentFactory contentFactory = ContentFactory.getInstance();
         Content content = contentFactory.createContent(dynaKeyMapToolWindow.getContent(), "", false);
+        content.setDisposer(dynaKeyMapToolWindow);
         toolWindow.getContentManager().addContent(content);
+        // A tool window restored as open on project startup is created with the project; fill it once it is on screen.
+        UiNotifyConnector.doWhenFirstShown(dynaKeyMapToolWindow, dynaKeyMapToolWindow::refresh);
     }
 }
@@ -0,0 +1,38 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/** The file formats a keymap can be exported to without any UI, e.g. in a batch or from the command line. */
+enum ExportFormat {
+    HTML, PDF, JSON;
+
+    /** The file extension, which is also the format's name on the command line. */
+    String extension() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /** @return the format with the given extension, or {@code null} */
+    static ExportFormat of(String extension) {
+        for (ExportFormat format : values()) {
+            if (format.extension().equalsIgnoreCase(extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param keyMapRows the Keymap grid, only used by HTML; build it with {@link KeyMapTableModel.Rows#build}
+     */
+    void write(KeymapSnapshot snapshot, KeyMapTableModel.Rows keyMapRows, Object keyMapLabel, Path path, ProgressIndicator indicator) throws IOException {
+        switch (this) {
+            case HTML -> HtmlExporter.write(snapshot, keyMapLabel, keyMapRows, path, indicator);
+            case PDF -> PdfExporter.write(snapshot, keyMapLabel, path, indicator);
+            case JSON -> JsonExporter.write(snapshot, keyMapLabel, path, indicator);
+        }
+    }
+}
@@ -1,17 +1,32 @@
 package dev.sandipchitale.dynakeymap;
 
 import com.intellij.openapi.application.ApplicationInfo;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 
-import java.io.File;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.net.URL;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /** Shared helpers for the HTML and PDF exporters. */
 final class Exports {
@@ -31,27 +46,153 @@ final class Exports {
                 .replace("'", "&#39;");
     }
 
-    static String convertFileToDataUrl(File file) throws IOException {
-        byte[] fileContent = Files.readAllBytes(file.toPath());
-        return "data:image/png;base64," + Base64.getEncoder().encodeToString(fileContent);
+    /** Streaming form of {@link #escapeHtml(String)}. */
+    static void escapeHtml(String s, Writer out) throws IOException {
+        if (s == null) return;
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            String entity = switch (s.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (entity != null) {
+                out.write(s, start, i - start);
+                out.write(entity);
+                start = i + 1;
+            }
+        }
+        out.write(s, start, s.length() - start);
+    }
+
+    /**
+     * The IDE splash image in the forms the exporters need.
+     *
+     * @param dataUrl  the PNG as a base64 data URL, for HTML pages
+     * @param image    the decoded image
+     * @param pdfImage the image encoded for PDF documents, or {@code null} if it could not be encoded ahead of time
+     */
+    record SplashImage(String dataUrl, BufferedImage image, PdfImage pdfImage) {
+    }
+
+    /**
+     * An image encoded once as a PDF image XObject: its raw (compressed) stream data and dictionary, and those of its
+     * soft mask. PDF objects belong to one document, so each document gets {@link #create created} objects of its
+     * own over the shared encoded data.
+     */
+    record PdfImage(byte[] data, COSDictionary dictionary, PdfImage softMask) {
+
+        static PdfImage of(COSStream stream) throws IOException {
+            byte[] data;
+            try (InputStream in = stream.createRawInputStream()) {
+                data = in.readAllBytes();
+            }
+            COSBase softMask = stream.getDictionaryObject(COSName.SMASK);
+            COSDictionary dictionary = new COSDictionary();
+            for (Map.Entry<COSName, COSBase> entry : stream.entrySet()) {
+                if (!entry.getKey().equals(COSName.LENGTH) && !entry.getKey().equals(COSName.SMASK)) {
+                    dictionary.setItem(entry.getKey(), copy(entry.getValue()));
+                }
+            }
+            return new PdfImage(data, dictionary, softMask instanceof COSStream softMaskStream ? of(softMaskStream) : null);
+        }
+
+        PDImageXObject create(PDDocument document) throws IOException {
+            COSStream stream = document.getDocument().createCOSStream();
+            try (OutputStream out = stream.createRawOutputStream()) {
+                out.write(data);
+            }
+            for (Map.Entry<COSName, COSBase> entry : dictionary.entrySet()) {
+                stream.setItem(entry.getKey(), copy(entry.getValue()));
+            }
+            if (softMask != null) {
+                stream.setItem(COSName.SMASK, softMask.create(document).getCOSObject());
+            }
+            return new PDImageXObject(new PDStream(stream), null);
+        }
+
+        /** Copies direct dictionary values, so no two documents share a mutable object. */
+        private static COSBase copy(COSBase value) throws IOException {
+            COSBase direct = value instanceof COSObject object ? object.getObject() : value;
+            if (direct instanceof COSStream) {
+                throw new IOException("Nested streams are not copied");
+            }
+            if (direct instanceof COSDictionary dictionary) {
+                COSDictionary copy = new COSDictionary();
+                for (Map.Entry<COSName, COSBase> entry : dictionary.entrySet()) {
+                    copy.setItem(entry.getKey(), copy(entry.getValue()));
+                }
+                return copy;
+            }
+            if (direct instanceof COSArray array) {
+                COSArray copy = new COSArray();
+                for (COSBase item : array) {
+                    copy.add(copy(item));
+                }
+                return copy;
+            }
+            // Names, numbers and booleans are immutable.
+            return direct;
+        }
     }
 
-    /** Copies the IDE splash image to a temp file, or returns {@code null} if unavailable. */
-    static Path splashImageTempFile() {
-        String splashImageUrl = ApplicationInfo.getInstance().getSplashImageUrl();
-        if (splashImageUrl == null) {
-            return null;
+    /** Returns the IDE splash image, or {@code null} if unavailable. Read and encoded once per session. */
+    static SplashImage splashImage() {
+        return SplashImageHolder.SPLASH_IMAGE;
+    }
+
+    private static final class SplashImageHolder {
+        static final SplashImage SPLASH_IMAGE = load();
+
+        private static SplashImage load() {
+            String splashImageUrl = ApplicationInfo.getInstance().getSplashImageUrl();
+            if (splashImageUrl == null) {
+                return null;
+            }
+            URL resourceUrl = ApplicationInfo.class.getResource(splashImageUrl);
+            if (resourceUrl == null) {
+                return null;
+            }
+            try (InputStream in = resourceUrl.openStream()) {
+                byte[] bytes = in.readAllBytes();
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+                if (image == null) {
+                    return null;
+                }
+                return new SplashImage("data:image/png;base64," + Base64.getEncoder().encodeToString(bytes), image, pdfImage(image));
+            } catch (IOException e) {
+                return null;
+            }
         }
-        URL resourceUrl = ApplicationInfo.class.getResource(splashImageUrl);
-        if (resourceUrl == null) {
-            return null;
+
+        private static PdfImage pdfImage(BufferedImage image) {
+            try (PDDocument scratch = new PDDocument()) {
+                return PdfImage.of(LosslessFactory.createFromImage(scratch, image).getCOSObject());
+            } catch (IOException e) {
+                // The cover then encodes the decoded image itself.
+                return null;
+            }
+        }
+    }
+
+    /** Shuts the executor down and waits, uninterruptibly, for the tasks already running on it to finish. */
+    static void shutdownAndAwait(ExecutorService executor) {
+        executor.shutdown();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
         }
-        try {
-            Path splashImagePath = Files.createTempFile("splash", ".png");
-            Files.copy(resourceUrl.openStream(), splashImagePath, StandardCopyOption.REPLACE_EXISTING);
-            return splashImagePath;
-        } catch (IOException e) {
-            return null;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
         }
     }
 
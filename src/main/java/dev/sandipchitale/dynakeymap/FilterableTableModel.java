@@ -0,0 +1,13 @@
+package dev.sandipchitale.dynakeymap;
+
+import javax.swing.table.TableModel;
+
+/** Table model whose rows can be tested against the tool window's search queries. */
+interface FilterableTableModel extends TableModel {
+
+    /** Whether the row matches the text query in one of the visible columns, flagged by model column index. */
+    boolean matches(int row, TextQuery query, boolean[] visibleColumns);
+
+    /** Whether the row shows a binding matching the keystroke query. */
+    boolean matches(int row, KeyStrokeQuery query);
+}
@@ -1,130 +1,289 @@
 package dev.sandipchitale.dynakeymap;
 
-import com.intellij.openapi.actionSystem.ActionManager;
 import com.intellij.openapi.actionSystem.KeyboardShortcut;
 import com.intellij.openapi.actionSystem.Shortcut;
 import com.intellij.openapi.application.ApplicationInfo;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.keymap.Keymap;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
 
-import javax.swing.table.DefaultTableModel;
 import java.awt.Desktop;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
 
-import static dev.sandipchitale.dynakeymap.Exports.convertFileToDataUrl;
 import static dev.sandipchitale.dynakeymap.Exports.escapeHtml;
 import static dev.sandipchitale.dynakeymap.Exports.nowFormatted;
-import static dev.sandipchitale.dynakeymap.Exports.splashImageTempFile;
-import static dev.sandipchitale.dynakeymap.Shortcuts.normalizeShortcut;
+import static dev.sandipchitale.dynakeymap.Exports.splashImage;
+import static dev.sandipchitale.dynakeymap.KeyMapLayout.*;
 
-/** Renders the action map and key map as a standalone HTML page and opens it in the browser. */
+/**
+ * Renders the action map and key map as a standalone HTML page and opens it in the browser. The page is streamed row
+ * by row to the file from a cancellable background task, so memory use does not grow with the keymap.
+ */
 final class HtmlExporter {
 
+    // Rows written between progress updates and cancellation checks.
+    private static final int PROGRESS_STEP = 256;
+
+    private static final String STYLESHEET_RESOURCE = "/export/keymap.css";
+
+    private static final String ALT_ROW = " bg-slate-100 ";
+    private static final String CELL_START = "<td class=\"text-nowrap border p-1\">";
+    private static final String ALT_ROW_CELL_START = "<td class=\"text-nowrap border p-1" + ALT_ROW + "\">";
+
     /**
-     * @param actionMapKeymap   keymap used for the Action Map and Unbound Actions sections
-     * @param keyMapLabel       label shown as the Key Map section heading
-     * @param keyMapTableModel  the populated key map table; cells already contain HTML and are emitted raw
+     * @param keymap      keymap whose snapshot is used for the Action Map and Unbound Actions sections
+     * @param keyMapLabel label shown as the Key Map section heading
+     * @param keyMapRows  the Keymap grid as currently shown
      */
-    static void export(Keymap actionMapKeymap, Object keyMapLabel, DefaultTableModel keyMapTableModel) {
-        ApplicationInfo applicationInfo = ApplicationInfo.getInstance();
-        ActionManager actionManager = ActionManager.getInstance();
-        KeymapActions actions = KeymapActions.collect(actionMapKeymap, actionManager);
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("<html>\n<head>\n<title>KeyMap and Action Map</title>\n");
-        sb.append("<meta charset=\"UTF-8\">\n");
-        sb.append("<meta name=\"viewport\" content=\"width=device-width, initial-scale=1.0\">\n");
-        sb.append("<script src=\"https://cdn.tailwindcss.com\"></script>\n");
-        sb.append("</head>\n<body>");
-
-        Path splashImagePath = splashImageTempFile();
-        if (splashImagePath != null) {
-            try {
-                sb.append("<div class=\"p-4\"><img src=\"").append(convertFileToDataUrl(splashImagePath.toFile())).append("\"></img></div>\n");
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+    static void export(Project project, Keymap keymap, Object keyMapLabel, KeyMapTableModel.Rows keyMapRows) {
+        new Task.Backgroundable(project, "Generating HTML", true) {
+            private Path htmlPath;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                KeymapSnapshot snapshot = ReadAction.nonBlocking(() -> KeymapSnapshots.getInstance().get(keymap)).executeSynchronously();
+                try {
+                    htmlPath = Files.createTempFile("Action map and Key maps", ".html");
+                    write(snapshot, keyMapLabel, keyMapRows, htmlPath, indicator);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
             }
+
+            @Override
+            public void onSuccess() {
+                try {
+                    Desktop.getDesktop().browse(htmlPath.toUri());
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }.queue();
+    }
+
+    /** Streams the page to {@code path}. A cancelled export leaves no file behind. */
+    static void write(KeymapSnapshot snapshot, Object keyMapLabel, KeyMapTableModel.Rows keyMapRows, Path path, ProgressIndicator indicator) throws IOException {
+        try (Timings.Span span = Timings.start(Timings.Phase.HTML_RENDER, String.valueOf(keyMapLabel));
+             Writer out = Files.newBufferedWriter(path)) {
+            new Page(out, indicator, snapshot, keyMapRows).write(keyMapLabel);
+        } catch (ProcessCanceledException e) {
+            Files.deleteIfExists(path);
+            throw e;
         }
+    }
 
-        sb.append("<div class=\"text-5xl text-bold p-4\">").append(applicationInfo.getFullApplicationName())
-                .append(" ( ").append(applicationInfo.getFullVersion()).append(" )</div>\n");
-        sb.append("<div class=\"text-bold p-4\">As of: ").append(nowFormatted()).append("</div>\n");
-
-        // Action Map.
-        sb.append("<div class=\"text-3xl text-bold p-4\">Action Map</div>\n");
-        sb.append("\t<table class=\"table-auto border-collapse border\">\n");
-        sb.append("\t\t<tr>\n");
-        sb.append("<th class=\"text-right text-nowrap border p-1\">#</th>");
-        sb.append("<th class=\"text-nowrap border p-1\">Action</th>");
-        sb.append("<th class=\"text-nowrap border p-1\">Shortcut</th>\n");
-        sb.append("\t\t</tr>\n");
-
-        int lineNumber = 0;
-        for (Map.Entry<String, KeymapActions.ActionIdAndShortCuts> entry : actions.bound().entrySet()) {
-            for (Shortcut shortcut : entry.getValue().shortcuts()) {
-                if (shortcut instanceof KeyboardShortcut keyboardShortcut) {
-                    sb.append(String.format("\t\t<tr><td class=\"text-right text-nowrap border p-1%s\">%5d</td><td class=\"text-nowrap border p-1\">%s</td><td class=\"text-nowrap border p-1\">%s</td></tr>\n",
-                            (lineNumber % 2 == 0 ? " bg-slate-100 " : ""),
-                            ++lineNumber,
-                            escapeHtml(entry.getKey()),
-                            normalizeShortcut(keyboardShortcut)));
+    /** Writes just the sections that grow with the keymap: Action Map, Key Map and Unbound Actions. */
+    static void writeSections(Writer out, KeymapSnapshot snapshot, Object keyMapLabel, KeyMapTableModel.Rows keyMapRows, ProgressIndicator indicator) throws IOException {
+        new Page(out, indicator, snapshot, keyMapRows).writeSections(keyMapLabel);
+    }
+
+    /** The precompiled stylesheet inlined into every page, read from the plugin's resources once. */
+    private static final class InlineStylesheet {
+        static final String CSS = load();
+
+        private static String load() {
+            try (InputStream in = HtmlExporter.class.getResourceAsStream(STYLESHEET_RESOURCE)) {
+                if (in == null) {
+                    throw new IllegalStateException("Missing " + STYLESHEET_RESOURCE);
                 }
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
         }
-        sb.append("\t</table>\n");
-
-        // Key Map (cells already contain intentional HTML markup, so they are emitted raw).
-        sb.append("<div class=\"text-3xl text-bold p-4\">").append(keyMapLabel).append(" KeyMap</div>\n");
-        sb.append("\t<table class=\"table-auto border-collapse border\">\n");
-        sb.append("\t\t<tr>");
-        int columnCount = keyMapTableModel.getColumnCount();
-        int rowCount = keyMapTableModel.getRowCount();
-        for (int column = 0; column < columnCount; column++) {
-            sb.append(String.format("<th class=\"text-nowrap border p-1\">%s</th>", keyMapTableModel.getColumnName(column).replace("<html>", "")));
+    }
+
+    /** One page being written; tracks progress over all table rows. */
+    private static final class Page {
+        private final Writer out;
+        private final ProgressIndicator indicator;
+        private final KeymapSnapshot snapshot;
+        private final KeyMapTableModel.Rows keyMapRows;
+        private final double totalRows;
+        private int writtenRows;
+
+        Page(Writer out, ProgressIndicator indicator, KeymapSnapshot snapshot, KeyMapTableModel.Rows keyMapRows) {
+            this.out = out;
+            this.indicator = indicator;
+            this.snapshot = snapshot;
+            this.keyMapRows = keyMapRows;
+            int boundRows = 0;
+            for (KeymapActions.ActionIdAndShortCuts bound : snapshot.actions().bound().values()) {
+                boundRows += bound.shortcuts().length;
+            }
+            this.totalRows = Math.max(1, boundRows + keyMapRows.size() + snapshot.actions().unbound().size());
+            indicator.setIndeterminate(false);
         }
-        sb.append("</tr>\n");
-
-        for (int row = 0; row < rowCount; row++) {
-            sb.append("\t\t<tr>");
-            for (int column = 0; column < columnCount; column++) {
-                sb.append(String.format("<td class=\"text-nowrap border p-1%s\">%s</td>",
-                        (row % 2 == 0 ? " bg-slate-100 " : ""),
-                        String.valueOf(keyMapTableModel.getValueAt(row, column)).replace("<html>", "")));
+
+        void write(Object keyMapLabel) throws IOException {
+            ApplicationInfo applicationInfo = ApplicationInfo.getInstance();
+
+            out.write("<html>\n<head>\n<title>KeyMap and Action Map</title>\n");
+            out.write("<meta charset=\"UTF-8\">\n");
+            out.write("<meta name=\"viewport\" content=\"width=device-width, initial-scale=1.0\">\n");
+            out.write("<style>\n");
+            out.write(InlineStylesheet.CSS);
+            out.write("</style>\n");
+            out.write("</head>\n<body>");
+
+            Exports.SplashImage splashImage = splashImage();
+            if (splashImage != null) {
+                out.write("<div class=\"p-4\"><img src=\"");
+                out.write(splashImage.dataUrl());
+                out.write("\"></img></div>\n");
             }
-            sb.append("\t\t</tr>\n");
+
+            out.write("<div class=\"text-5xl text-bold p-4\">");
+            out.write(applicationInfo.getFullApplicationName());
+            out.write(" ( ");
+            out.write(applicationInfo.getFullVersion());
+            out.write(" )</div>\n");
+            out.write("<div class=\"text-bold p-4\">As of: ");
+            out.write(nowFormatted());
+            out.write("</div>\n");
+
+            writeSections(keyMapLabel);
+
+            out.write("</body>");
+            out.write("</html>");
+        }
+
+        void writeSections(Object keyMapLabel) throws IOException {
+            writeActionMap();
+            writeKeyMap(keyMapLabel);
+            writeUnboundActions();
         }
-        sb.append("\t</table>\n");
-
-        // Unbound Actions.
-        if (!actions.unbound().isEmpty()) {
-            sb.append("<div class=\"text-3xl text-bold p-4\">Unbound Actions</div>\n");
-            sb.append("\t<table class=\"table-auto border-collapse border\">\n");
-            sb.append("\t\t<tr>\n");
-            sb.append("<th class=\"text-right text-nowrap border p-1\">#</th>");
-            sb.append("<th class=\"text-nowrap border p-1\">Action</th>");
-            sb.append("\t\t</tr>\n");
-
-            lineNumber = 0;
-            for (String actionName : actions.unbound().keySet()) {
-                sb.append(String.format("\t\t<tr><td class=\"text-right text-nowrap border p-1%s\">%5d</td><td class=\"text-nowrap border p-1\">%s</td></tr>\n",
-                        (lineNumber % 2 == 0 ? " bg-slate-100 " : ""),
-                        ++lineNumber,
-                        escapeHtml(actionName)));
+
+        private void writeActionMap() throws IOException {
+            indicator.setText("Action Map");
+            out.write("<div class=\"text-3xl text-bold p-4\">Action Map</div>\n");
+            out.write("\t<table class=\"table-auto border-collapse border\">\n");
+            out.write("\t\t<tr>\n");
+            out.write("<th class=\"text-right text-nowrap border p-1\">#</th>");
+            out.write("<th class=\"text-nowrap border p-1\">Action</th>");
+            out.write("<th class=\"text-nowrap border p-1\">Shortcut</th>\n");
+            out.write("\t\t</tr>\n");
+
+            int lineNumber = 0;
+            for (Map.Entry<String, KeymapActions.ActionIdAndShortCuts> entry : snapshot.actions().bound().entrySet()) {
+                for (Shortcut shortcut : entry.getValue().shortcuts()) {
+                    if (shortcut instanceof KeyboardShortcut keyboardShortcut) {
+                        out.write("\t\t<tr><td class=\"text-right text-nowrap border p-1");
+                        out.write(lineNumber % 2 == 0 ? ALT_ROW : "");
+                        out.write("\">");
+                        out.write(Integer.toString(++lineNumber));
+                        out.write("</td><td class=\"text-nowrap border p-1\">");
+                        escapeHtml(entry.getKey(), out);
+                        out.write("</td><td class=\"text-nowrap border p-1\">");
+                        escapeHtml(KeyStrokeFormat.text(keyboardShortcut), out);
+                        out.write("</td></tr>\n");
+                    }
+                    rowWritten();
+                }
             }
-            sb.append("\t</table>\n");
+            out.write("\t</table>\n");
         }
 
-        sb.append("</body>");
-        sb.append("</html>");
+        private void writeKeyMap(Object keyMapLabel) throws IOException {
+            indicator.setText("Key Map");
+            out.write("<div class=\"text-3xl text-bold p-4\">");
+            escapeHtml(String.valueOf(keyMapLabel), out);
+            out.write(" KeyMap</div>\n");
+            out.write("\t<table class=\"table-auto border-collapse border\">\n");
+            out.write("\t\t<tr>");
+            for (String columnName : KEYMAP_COLUMNS) {
+                out.write("<th class=\"text-nowrap border p-1\">");
+                escapeHtml(columnName, out);
+                out.write("</th>");
+            }
+            out.write("</tr>\n");
+
+            for (int row = 0; row < keyMapRows.size(); row++) {
+                String cellStart = row % 2 == 0 ? ALT_ROW_CELL_START : CELL_START;
+                boolean chordRow = keyMapRows.chordRows()[row];
+                String key = ALL_KEYS.get(keyMapRows.keys()[row]);
+                out.write("\t\t<tr>");
+                out.write(cellStart);
+                escapeHtml(chordRow ? "" : key, out);
+                out.write("</td>");
+                out.write(cellStart);
+                escapeHtml(chordRow ? key : "", out);
+                out.write("</td>");
+                for (int cell = row * MODIFIERS.length; cell < (row + 1) * MODIFIERS.length; cell++) {
+                    out.write(cellStart);
+                    writeCell(cell, chordRow);
+                    out.write("</td>");
+                }
+                out.write("\t\t</tr>\n");
+                rowWritten();
+            }
+            out.write("\t</table>\n");
+        }
 
-        try {
-            Path actionMapAndKeyMapsPath = Files.createTempFile("Action map and Key maps", ".html");
-            Files.writeString(actionMapAndKeyMapsPath, sb.toString());
-            Desktop.getDesktop().browse(actionMapAndKeyMapsPath.toUri());
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        /** Writes a grid cell as lines of {@code <code>} keycaps followed by the action name. */
+        private void writeCell(int cell, boolean chordRow) throws IOException {
+            int start = keyMapRows.cellOffsets()[cell];
+            int end = keyMapRows.cellOffsets()[cell + 1];
+            for (int entry = start; entry < end; entry++) {
+                if (entry > start) {
+                    out.write("<br/>");
+                }
+                out.write("<nobr>");
+                if (chordRow) {
+                    out.write("<code>[ ");
+                    escapeHtml(keyMapRows.labels().get(keyMapRows.cellFirstKeyStrokes()[entry]), out);
+                    out.write(" ]</code> ");
+                }
+                out.write("<code>[ ");
+                escapeHtml(keyMapRows.labels().get(keyMapRows.cellKeyStrokes()[cell]), out);
+                out.write(" ]</code> - ");
+                escapeHtml(keyMapRows.actionTable().name(keyMapRows.cellActions()[entry]), out);
+                out.write("</nobr>");
+            }
+        }
+
+        private void writeUnboundActions() throws IOException {
+            if (snapshot.actions().unbound().isEmpty()) {
+                return;
+            }
+            indicator.setText("Unbound Actions");
+            out.write("<div class=\"text-3xl text-bold p-4\">Unbound Actions</div>\n");
+            out.write("\t<table class=\"table-auto border-collapse border\">\n");
+            out.write("\t\t<tr>\n");
+            out.write("<th class=\"text-right text-nowrap border p-1\">#</th>");
+            out.write("<th class=\"text-nowrap border p-1\">Action</th>");
+            out.write("\t\t</tr>\n");
+
+            int lineNumber = 0;
+            for (String actionName : snapshot.actions().unbound().keySet()) {
+                out.write("\t\t<tr><td class=\"text-right text-nowrap border p-1");
+                out.write(lineNumber % 2 == 0 ? ALT_ROW : "");
+                out.write("\">");
+                out.write(Integer.toString(++lineNumber));
+                out.write("</td><td class=\"text-nowrap border p-1\">");
+                escapeHtml(actionName, out);
+                out.write("</td></tr>\n");
+                rowWritten();
+            }
+            out.write("\t</table>\n");
+        }
+
+        private void rowWritten() {
+            if (++writtenRows % PROGRESS_STEP == 0) {
+                indicator.checkCanceled();
+                indicator.setFraction(writtenRows / totalRows);
+            }
         }
     }
 
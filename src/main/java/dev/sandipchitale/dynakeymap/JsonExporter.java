@@ -0,0 +1,108 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.actionSystem.KeyboardShortcut;
+import com.intellij.openapi.actionSystem.Shortcut;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static dev.sandipchitale.dynakeymap.Exports.nowFormatted;
+
+/**
+ * Writes a keymap's actions as JSON, for tooling that publishes keymaps:
+ * <pre>
+ * {"keymap": "...", "asOf": "...",
+ *  "bound": [{"id": "...", "name": "...", "shortcuts": ["[ ctrl S ]", ...]}, ...],
+ *  "unbound": [{"id": "...", "name": "..."}, ...]}
+ * </pre>
+ * Actions are in display name order; mouse and other non-keyboard shortcuts are left out.
+ */
+final class JsonExporter {
+
+    // Actions written between cancellation checks.
+    private static final int PROGRESS_STEP = 256;
+
+    /** Writes the document to {@code path}. A cancelled export leaves no file behind. */
+    static void write(KeymapSnapshot snapshot, Object keyMapLabel, Path path, ProgressIndicator indicator) throws IOException {
+        try (Writer out = Files.newBufferedWriter(path)) {
+            out.write("{\"keymap\": ");
+            string(String.valueOf(keyMapLabel), out);
+            out.write(", \"asOf\": ");
+            string(nowFormatted(), out);
+
+            out.write(",\n\"bound\": [");
+            int written = 0;
+            for (Map.Entry<String, KeymapActions.ActionIdAndShortCuts> entry : snapshot.actions().bound().entrySet()) {
+                out.write(written++ == 0 ? "\n" : ",\n");
+                out.write("{\"id\": ");
+                string(entry.getValue().actionId(), out);
+                out.write(", \"name\": ");
+                string(entry.getKey(), out);
+                out.write(", \"shortcuts\": [");
+                boolean first = true;
+                for (Shortcut shortcut : entry.getValue().shortcuts()) {
+                    if (shortcut instanceof KeyboardShortcut keyboardShortcut) {
+                        if (!first) {
+                            out.write(", ");
+                        }
+                        string(KeyStrokeFormat.text(keyboardShortcut), out);
+                        first = false;
+                    }
+                }
+                out.write("]}");
+                if (written % PROGRESS_STEP == 0) {
+                    indicator.checkCanceled();
+                }
+            }
+
+            out.write("],\n\"unbound\": [");
+            written = 0;
+            for (Map.Entry<String, String> entry : snapshot.actions().unbound().entrySet()) {
+                out.write(written++ == 0 ? "\n" : ",\n");
+                out.write("{\"id\": ");
+                string(entry.getValue(), out);
+                out.write(", \"name\": ");
+                string(entry.getKey(), out);
+                out.write("}");
+                if (written % PROGRESS_STEP == 0) {
+                    indicator.checkCanceled();
+                }
+            }
+            out.write("]}\n");
+        } catch (ProcessCanceledException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    /** Writes a JSON string literal. */
+    private static void string(String s, Writer out) throws IOException {
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+
+    private JsonExporter() {
+    }
+}
@@ -0,0 +1,142 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.ui.JBColor;
+import com.intellij.util.ui.UIUtil;
+
+import javax.swing.*;
+import javax.swing.table.TableCellRenderer;
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+
+import static dev.sandipchitale.dynakeymap.KeyMapLayout.ROW_LINE_HEIGHT;
+
+/**
+ * Paints Keymap grid cells directly with Graphics2D: keycaps for keystrokes followed by the action name, one line
+ * per action. Renders {@link KeyMapCell}s as well as plain key names (a single keycap). Unlike an HTML label, this
+ * does no markup parsing or view layout per paint; keycap widths are measured once per font and cached.
+ */
+final class KeyCapCellRenderer extends JComponent implements TableCellRenderer {
+
+    private static final JBColor KEYCAP_BACKGROUND = new JBColor(new Color(0xF2F3F5), new Color(0x3C3F41));
+    private static final JBColor KEYCAP_BORDER = new JBColor(new Color(0xC9CCD6), new Color(0x5E6060));
+
+    private static final int CELL_PADDING = 4;
+    private static final int KEYCAP_PADDING = 4;
+    private static final int KEYCAP_GAP = 4;
+    private static final int KEYCAP_ARC = 6;
+    private static final String SEPARATOR = " - ";
+
+    // Keycap widths by label for the current font; the grid only ever shows a few hundred distinct keystrokes.
+    private final Map<String, Integer> keycapWidths = new HashMap<>();
+
+    private Font font;
+    private FontMetrics fontMetrics;
+    private Font keycapFont;
+    private FontMetrics keycapFontMetrics;
+
+    private Object value;
+
+    KeyCapCellRenderer() {
+        setOpaque(true);
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+        Font tableFont = table.getFont();
+        if (!tableFont.equals(font)) {
+            font = tableFont;
+            fontMetrics = table.getFontMetrics(font);
+            keycapFont = new Font(Font.MONOSPACED, Font.PLAIN, font.getSize());
+            keycapFontMetrics = table.getFontMetrics(keycapFont);
+            keycapWidths.clear();
+        }
+        this.value = value;
+        setBackground(isSelected ? table.getSelectionBackground() : table.getBackground());
+        setForeground(isSelected ? table.getSelectionForeground() : table.getForeground());
+        return this;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setColor(getBackground());
+            g2.fillRect(0, 0, getWidth(), getHeight());
+            UIUtil.applyRenderingHints(g2);
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+            if (value instanceof KeyMapCell cell) {
+                int top = (getHeight() - cell.lines() * ROW_LINE_HEIGHT) / 2;
+                for (int line = 0; line < cell.lines(); line++) {
+                    int x = CELL_PADDING;
+                    int y = top + line * ROW_LINE_HEIGHT;
+                    if (cell.isChord()) {
+                        x = paintKeycap(g2, cell.firstKeyStrokeLabels()[line], x, y) + KEYCAP_GAP;
+                    }
+                    x = paintKeycap(g2, cell.keyStrokeLabel(), x, y);
+                    paintText(g2, SEPARATOR + cell.actionNames()[line], x, y);
+                }
+            } else if (value instanceof String key && !key.isEmpty()) {
+                paintKeycap(g2, key, CELL_PADDING, (getHeight() - ROW_LINE_HEIGHT) / 2);
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    /** Paints a keycap whose line box starts at {@code y}; returns the x just past it. */
+    private int paintKeycap(Graphics2D g2, String label, int x, int y) {
+        int width = keycapWidth(label);
+        int height = keycapFontMetrics.getHeight() + 2;
+        int capY = y + (ROW_LINE_HEIGHT - height) / 2;
+        g2.setColor(KEYCAP_BACKGROUND);
+        g2.fillRoundRect(x, capY, width, height, KEYCAP_ARC, KEYCAP_ARC);
+        g2.setColor(KEYCAP_BORDER);
+        g2.drawRoundRect(x, capY, width, height, KEYCAP_ARC, KEYCAP_ARC);
+        g2.setColor(JBColor.foreground());
+        g2.setFont(keycapFont);
+        g2.drawString(label, x + KEYCAP_PADDING, capY + 1 + keycapFontMetrics.getAscent());
+        return x + width;
+    }
+
+    private void paintText(Graphics2D g2, String text, int x, int y) {
+        g2.setColor(getForeground());
+        g2.setFont(font);
+        g2.drawString(text, x, y + (ROW_LINE_HEIGHT - fontMetrics.getHeight()) / 2 + fontMetrics.getAscent());
+    }
+
+    private int keycapWidth(String label) {
+        return keycapWidths.computeIfAbsent(label, l -> keycapFontMetrics.stringWidth(l) + 2 * KEYCAP_PADDING);
+    }
+
+    // The overrides below mirror DefaultTableCellRenderer: a rubber stamp never needs revalidation or repaint requests.
+
+    @Override
+    public void invalidate() {
+    }
+
+    @Override
+    public void validate() {
+    }
+
+    @Override
+    public void revalidate() {
+    }
+
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+    }
+
+    @Override
+    public void repaint(Rectangle r) {
+    }
+
+    @Override
+    public void repaint() {
+    }
+
+    @Override
+    protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+    }
+}
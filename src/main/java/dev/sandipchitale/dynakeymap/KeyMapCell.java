@@ -0,0 +1,36 @@
+package dev.sandipchitale.dynakeymap;
+
+/**
+ * Structured contents of a Keymap grid cell: one line per bound action, each line showing the cell's keystroke
+ * (preceded by the chord's first keystroke in chord rows) and the action name.
+ *
+ * @param keyStrokeLabel       display label of the cell's keystroke
+ * @param firstKeyStrokeLabels display label of each line's first keystroke in chord rows, {@code null} otherwise
+ * @param actionNames          display name of each line's action
+ */
+record KeyMapCell(String keyStrokeLabel, String[] firstKeyStrokeLabels, String[] actionNames) {
+
+    int lines() {
+        return actionNames.length;
+    }
+
+    boolean isChord() {
+        return firstKeyStrokeLabels != null;
+    }
+
+    /** Plain text form, used for sorting and filtering. */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int line = 0; line < actionNames.length; line++) {
+            if (line > 0) {
+                sb.append('\n');
+            }
+            if (isChord()) {
+                sb.append("[ ").append(firstKeyStrokeLabels[line]).append(" ] ");
+            }
+            sb.append("[ ").append(keyStrokeLabel).append(" ] - ").append(actionNames[line]);
+        }
+        return sb.toString();
+    }
+}
@@ -2,10 +2,13 @@ package dev.sandipchitale.dynakeymap;
 
 import com.intellij.openapi.util.SystemInfo;
 
+import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.lang.reflect.Field;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /** Column layout plus the key and modifier domain data shared by the key map tables. */
 final class KeyMapLayout {
@@ -26,20 +29,38 @@ final class KeyMapLayout {
     static final int ROW_LINE_HEIGHT = 24;
 
     static final String[] MODIFIERS;
+    // Extended modifier mask of each MODIFIERS entry.
+    static final int[] MODIFIER_MASKS;
     static final List<String> ALL_KEYS;
+    // Virtual key code of each ALL_KEYS entry.
+    static final int[] KEY_CODES;
     static final String[] KEYMAP_COLUMNS;
     static final String[] ACTIONMAP_COLUMNS;
 
+    private static final int MODIFIERS_MASK = InputEvent.SHIFT_DOWN_MASK | InputEvent.CTRL_DOWN_MASK
+            | InputEvent.META_DOWN_MASK | InputEvent.ALT_DOWN_MASK | InputEvent.ALT_GRAPH_DOWN_MASK;
+
+    private static final Map<Integer, Integer> KEY_INDEX_BY_CODE = new HashMap<>();
+    private static final Map<Integer, Integer> MODIFIER_INDEX_BY_MASK = new HashMap<>();
+
     static {
         // Enumerate the VK_ key names exposed by KeyEvent (e.g. VK_A -> "A").
-        List<String> keys = new ArrayList<>();
-        for (java.lang.reflect.Field field : KeyEvent.class.getDeclaredFields()) {
+        TreeMap<String, Integer> keys = new TreeMap<>();
+        for (Field field : KeyEvent.class.getDeclaredFields()) {
             if (field.getName().startsWith("VK_")) {
-                keys.add(field.getName().replace("VK_", ""));
+                try {
+                    keys.put(field.getName().replace("VK_", ""), field.getInt(null));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
             }
         }
-        Collections.sort(keys);
-        ALL_KEYS = List.copyOf(keys);
+        ALL_KEYS = List.copyOf(keys.keySet());
+        KEY_CODES = keys.values().stream().mapToInt(Integer::intValue).toArray();
+        for (int key = 0; key < KEY_CODES.length; key++) {
+            // Aliases (e.g. SEPARATER / SEPARATOR) share a code; the first one wins.
+            KEY_INDEX_BY_CODE.putIfAbsent(KEY_CODES[key], key);
+        }
 
         if (SystemInfo.isMac) {
             MODIFIERS = new String[]{"shift", "ctrl", "meta", "alt", "shift ctrl", "shift meta", "shift alt", "ctrl meta", "ctrl alt", "meta alt", "shift ctrl meta", "shift ctrl alt", "shift meta alt", "ctrl meta alt", "shift ctrl meta alt", ""};
@@ -47,6 +68,20 @@ final class KeyMapLayout {
             MODIFIERS = new String[]{"shift", "ctrl", "alt", "shift ctrl", "shift alt", "ctrl alt", "shift ctrl alt", ""};
         }
 
+        MODIFIER_MASKS = new int[MODIFIERS.length];
+        for (int modifier = 0; modifier < MODIFIERS.length; modifier++) {
+            for (String name : MODIFIERS[modifier].split(" ")) {
+                MODIFIER_MASKS[modifier] |= switch (name) {
+                    case "shift" -> InputEvent.SHIFT_DOWN_MASK;
+                    case "ctrl" -> InputEvent.CTRL_DOWN_MASK;
+                    case "meta" -> InputEvent.META_DOWN_MASK;
+                    case "alt" -> InputEvent.ALT_DOWN_MASK;
+                    default -> 0;
+                };
+            }
+            MODIFIER_INDEX_BY_MASK.put(MODIFIER_MASKS[modifier], modifier);
+        }
+
         KEYMAP_COLUMNS = new String[KEYSTROKE_KEY_COLUMNS + MODIFIERS.length];
         KEYMAP_COLUMNS[FIRST_KEYSTROKE_KEY] = "Key in First Keystroke";
         KEYMAP_COLUMNS[SECOND_KEYSTROKE_KEY] = "Key in Second Keystroke";
@@ -59,6 +94,16 @@ final class KeyMapLayout {
         ACTIONMAP_COLUMNS[ACTION_ID_COLUMN] = "ActionId";
     }
 
+    /** Returns the ALL_KEYS index of a virtual key code, or {@code -1} if it has no row. */
+    static int keyIndex(int keyCode) {
+        return KEY_INDEX_BY_CODE.getOrDefault(keyCode, -1);
+    }
+
+    /** Returns the MODIFIERS index of a keystroke's modifiers, or {@code -1} if no column shows that combination. */
+    static int modifierIndex(int modifiers) {
+        return MODIFIER_INDEX_BY_MASK.getOrDefault(modifiers & MODIFIERS_MASK, -1);
+    }
+
     private KeyMapLayout() {
     }
 }
@@ -0,0 +1,422 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.actionSystem.KeyboardShortcut;
+import com.intellij.openapi.progress.ProgressManager;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import javax.swing.KeyStroke;
+import javax.swing.table.AbstractTableModel;
+import java.awt.event.KeyEvent;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static dev.sandipchitale.dynakeymap.KeyMapLayout.*;
+
+/**
+ * Keymap tab model: one row per key for bindings whose first keystroke uses that key, plus a chord row for the
+ * key when some chord ends on it. Each modifier column holds a {@link KeyMapCell} (or {@code null} when empty)
+ * listing the actions bound to that keystroke.
+ */
+final class KeyMapTableModel extends AbstractTableModel implements FilterableTableModel {
+
+    /**
+     * Columnar, immutable grid contents; built off the EDT and swapped in with {@link #setRows(Rows)}. Cell
+     * {@code (row, modifier)} is the slice {@code [cellOffsets[c], cellOffsets[c + 1])} of the cell columns, where
+     * {@code c = row * MODIFIERS.length + modifier}.
+     *
+     * @param actionTable         the snapshot's action table that {@code cellActions} indexes into
+     * @param keys                index into {@link KeyMapLayout#ALL_KEYS} per row
+     * @param chordRows           whether the row lists chords ending on its key (otherwise first keystrokes)
+     * @param lines               the largest number of actions in any cell of the row
+     * @param cellKeyStrokes      packed keystroke of every cell (the second keystroke in chord rows)
+     * @param cellOffsets         start of every cell's slice, plus a trailing end offset
+     * @param cellActions         action index per cell entry
+     * @param cellFirstKeyStrokes packed first keystroke per cell entry of chord rows, {@link KeyStrokeCodes#NONE} otherwise
+     * @param labels              display label of every distinct packed keystroke shown in a non-empty cell
+     */
+    record Rows(KeymapSnapshot.ActionTable actionTable,
+                int[] keys,
+                boolean[] chordRows,
+                int[] lines,
+                int[] cellKeyStrokes,
+                int[] cellOffsets,
+                int[] cellActions,
+                int[] cellFirstKeyStrokes,
+                Map<Integer, String> labels) {
+
+        static final Rows EMPTY = new Rows(KeymapSnapshot.ActionTable.of(Map.of()),
+                new int[0], new boolean[0], new int[0], new int[0], new int[]{0}, new int[0], new int[0], Map.of());
+
+        int size() {
+            return keys.length;
+        }
+
+        /**
+         * @param boundKeysOnly when set, rows are derived from the snapshot's keystroke and chord indexes and only keys
+         *                      carrying a binding get a row; otherwise every key of {@link KeyMapLayout#ALL_KEYS} is
+         *                      probed with every modifier combination
+         */
+        static Rows build(KeymapSnapshot snapshot, boolean boundKeysOnly) {
+            Builder builder = new Builder(snapshot);
+            KeyStroke[] keyStrokes = new KeyStroke[MODIFIERS.length];
+            if (boundKeysOnly) {
+                // Sparse key x modifier grids of the bound first and second keystrokes.
+                KeyStroke[] firstKeyStrokes = place(snapshot.keyStrokeIndex().keySet());
+                KeyStroke[] secondKeyStrokes = place(snapshot.chordIndex().keySet());
+                for (int key = 0; key < ALL_KEYS.size(); key++) {
+                    System.arraycopy(firstKeyStrokes, key * MODIFIERS.length, keyStrokes, 0, MODIFIERS.length);
+                    builder.addRow(key, false, keyStrokes, false);
+                    System.arraycopy(secondKeyStrokes, key * MODIFIERS.length, keyStrokes, 0, MODIFIERS.length);
+                    builder.addRow(key, true, keyStrokes, false);
+                }
+            } else {
+                for (int key = 0; key < ALL_KEYS.size(); key++) {
+                    ProgressManager.checkCanceled();
+                    for (int modifier = 0; modifier < MODIFIERS.length; modifier++) {
+                        keyStrokes[modifier] = KeyStroke.getKeyStroke(KEY_CODES[key], MODIFIER_MASKS[modifier]);
+                    }
+                    builder.addRow(key, false, keyStrokes, true);
+                    // Second-keystroke (chord) row, only kept when there is at least one chord ending on this key.
+                    builder.addRow(key, true, keyStrokes, false);
+                }
+            }
+            return builder.build();
+        }
+
+        /**
+         * Rebuilds just the given rows, identified by {@link #rowId} and in ascending order, for
+         * {@link KeyMapTableModel#patchRows}. Rows that would be dropped in the given mode are missing from the result.
+         */
+        static Rows forRows(KeymapSnapshot snapshot, boolean boundKeysOnly, int[] rowIds) {
+            Builder builder = new Builder(snapshot);
+            KeyStroke[] keyStrokes = new KeyStroke[MODIFIERS.length];
+            for (int rowId : rowIds) {
+                int key = rowId >> 1;
+                for (int modifier = 0; modifier < MODIFIERS.length; modifier++) {
+                    keyStrokes[modifier] = KeyStroke.getKeyStroke(KEY_CODES[key], MODIFIER_MASKS[modifier]);
+                }
+                boolean chordRow = (rowId & 1) != 0;
+                builder.addRow(key, chordRow, keyStrokes, !chordRow && !boundKeysOnly);
+            }
+            return builder.build();
+        }
+
+        /** Adds the ids of the rows whose cells can show the given shortcut in the given mode. */
+        static void addRowIds(KeyboardShortcut shortcut, boolean boundKeysOnly, Set<Integer> rowIds) {
+            addRowIds(shortcut.getFirstKeyStroke(), false, boundKeysOnly, rowIds);
+            addRowIds(shortcut.getSecondKeyStroke(), true, boundKeysOnly, rowIds);
+        }
+
+        private static void addRowIds(KeyStroke keyStroke, boolean chordRow, boolean boundKeysOnly, Set<Integer> rowIds) {
+            if (keyStroke == null) {
+                return;
+            }
+            if (boundKeysOnly) {
+                // The sparse grid places a keystroke on the first key with its code only, see place().
+                int key = keyIndex(keyStroke.getKeyCode());
+                if (key >= 0) {
+                    rowIds.add(rowId(key, chordRow));
+                }
+                return;
+            }
+            for (int key = 0; key < KEY_CODES.length; key++) {
+                if (KEY_CODES[key] == keyStroke.getKeyCode()) {
+                    rowIds.add(rowId(key, chordRow));
+                }
+            }
+        }
+
+        /** Rows are ordered by key, the key's first-keystroke row before its chord row; this is that order. */
+        static int rowId(int key, boolean chordRow) {
+            return key * 2 + (chordRow ? 1 : 0);
+        }
+
+        /** Returns the first row whose id is not less than {@code rowId}. */
+        int lowerBound(int rowId) {
+            int low = 0;
+            int high = size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (rowId(keys[mid], chordRows[mid]) < rowId) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /** Returns the row with the given id, or {@code -1} if there is none. */
+        int indexOf(int rowId) {
+            int row = lowerBound(rowId);
+            return row < size() && rowId(keys[row], chordRows[row]) == rowId ? row : -1;
+        }
+
+        /** Returns a copy with rows {@code [from, to)} replaced by rows {@code [insertFrom, insertTo)} of {@code insert}. */
+        Rows splice(int from, int to, Rows insert, int insertFrom, int insertTo) {
+            int m = MODIFIERS.length;
+            int entryFrom = cellOffsets[from * m];
+            int entryTo = cellOffsets[to * m];
+            int insertEntryFrom = insert.cellOffsets()[insertFrom * m];
+            int insertEntryTo = insert.cellOffsets()[insertTo * m];
+
+            // Cell offsets are absolute entry positions, so the inserted and trailing ones are rebased.
+            int[] splicedCellOffsets = Columns.splice(cellOffsets, from * m, to * m, insert.cellOffsets(), insertFrom * m, insertTo * m, int[]::new);
+            for (int c = from * m; c < splicedCellOffsets.length; c++) {
+                splicedCellOffsets[c] += c < (from + insertTo - insertFrom) * m
+                        ? entryFrom - insertEntryFrom
+                        : insertEntryTo - insertEntryFrom - (entryTo - entryFrom);
+            }
+
+            Map<Integer, String> splicedLabels = labels;
+            if (insertTo > insertFrom) {
+                Map<Integer, String> merged = new HashMap<>(labels);
+                merged.putAll(insert.labels());
+                splicedLabels = Map.copyOf(merged);
+            }
+            return new Rows(insert.actionTable(),
+                    Columns.splice(keys, from, to, insert.keys(), insertFrom, insertTo, int[]::new),
+                    Columns.splice(chordRows, from, to, insert.chordRows(), insertFrom, insertTo, boolean[]::new),
+                    Columns.splice(lines, from, to, insert.lines(), insertFrom, insertTo, int[]::new),
+                    Columns.splice(cellKeyStrokes, from * m, to * m, insert.cellKeyStrokes(), insertFrom * m, insertTo * m, int[]::new),
+                    splicedCellOffsets,
+                    Columns.splice(cellActions, entryFrom, entryTo, insert.cellActions(), insertEntryFrom, insertEntryTo, int[]::new),
+                    Columns.splice(cellFirstKeyStrokes, entryFrom, entryTo, insert.cellFirstKeyStrokes(), insertEntryFrom, insertEntryTo, int[]::new),
+                    splicedLabels);
+        }
+
+        private static KeyStroke[] place(Set<KeyStroke> keyStrokes) {
+            KeyStroke[] grid = new KeyStroke[ALL_KEYS.size() * MODIFIERS.length];
+            for (KeyStroke keyStroke : keyStrokes) {
+                if (keyStroke.getKeyEventType() != KeyEvent.KEY_PRESSED || keyStroke.isOnKeyRelease()) {
+                    continue;
+                }
+                int key = keyIndex(keyStroke.getKeyCode());
+                int modifier = modifierIndex(keyStroke.getModifiers());
+                if (key >= 0 && modifier >= 0) {
+                    grid[key * MODIFIERS.length + modifier] = keyStroke;
+                }
+            }
+            return grid;
+        }
+    }
+
+    /** Appends rows to the growing columns of a {@link Rows}. */
+    private static final class Builder {
+        private final KeymapSnapshot snapshot;
+        private final IntArrayList keys = new IntArrayList();
+        private final BitSet chordRows = new BitSet();
+        private final IntArrayList lines = new IntArrayList();
+        private final IntArrayList cellKeyStrokes = new IntArrayList();
+        private final IntArrayList cellOffsets = new IntArrayList();
+        private final IntArrayList cellActions = new IntArrayList();
+        private final IntArrayList cellFirstKeyStrokes = new IntArrayList();
+        private final Map<Integer, String> labels = new HashMap<>();
+
+        Builder(KeymapSnapshot snapshot) {
+            this.snapshot = snapshot;
+            cellOffsets.add(0);
+        }
+
+        /** Appends a row with one cell per modifier; a row without bindings is dropped unless {@code keepEmpty}. */
+        void addRow(int key, boolean chordRow, KeyStroke[] keyStrokes, boolean keepEmpty) {
+            int cellCount = cellKeyStrokes.size();
+            int entryCount = cellActions.size();
+            int maxRowsInARow = 1;
+            for (KeyStroke keyStroke : keyStrokes) {
+                cellKeyStrokes.add(KeyStrokeCodes.pack(keyStroke));
+                if (keyStroke != null) {
+                    maxRowsInARow = Math.max(maxRowsInARow, chordRow ? addChords(keyStroke) : addActions(keyStroke));
+                }
+                cellOffsets.add(cellActions.size());
+            }
+            if (keepEmpty || cellActions.size() > entryCount) {
+                chordRows.set(keys.size(), chordRow);
+                keys.add(key);
+                lines.add(maxRowsInARow);
+            } else {
+                cellKeyStrokes.size(cellCount);
+                cellOffsets.size(cellCount + 1);
+                cellActions.size(entryCount);
+                cellFirstKeyStrokes.size(entryCount);
+            }
+        }
+
+        private int addActions(KeyStroke keyStroke) {
+            int[] actions = snapshot.keyStrokeIndex().get(keyStroke);
+            if (actions == null) {
+                return 0;
+            }
+            label(keyStroke);
+            for (int action : actions) {
+                cellActions.add(action);
+                cellFirstKeyStrokes.add(KeyStrokeCodes.NONE);
+            }
+            return actions.length;
+        }
+
+        private int addChords(KeyStroke secondKeyStroke) {
+            List<KeymapSnapshot.Chord> chords = snapshot.chordIndex().get(secondKeyStroke);
+            if (chords == null) {
+                return 0;
+            }
+            label(secondKeyStroke);
+            for (KeymapSnapshot.Chord chord : chords) {
+                cellActions.add(chord.action());
+                cellFirstKeyStrokes.add(label(chord.firstKeyStroke()));
+            }
+            return chords.size();
+        }
+
+        private int label(KeyStroke keyStroke) {
+            int code = KeyStrokeCodes.pack(keyStroke);
+            labels.computeIfAbsent(code, c -> KeyStrokeFormat.compact(keyStroke));
+            return code;
+        }
+
+        Rows build() {
+            boolean[] chordRowFlags = new boolean[keys.size()];
+            for (int row = 0; row < chordRowFlags.length; row++) {
+                chordRowFlags[row] = chordRows.get(row);
+            }
+            return new Rows(snapshot.actionTable(),
+                    keys.toIntArray(),
+                    chordRowFlags,
+                    lines.toIntArray(),
+                    cellKeyStrokes.toIntArray(),
+                    cellOffsets.toIntArray(),
+                    cellActions.toIntArray(),
+                    cellFirstKeyStrokes.toIntArray(),
+                    Map.copyOf(labels));
+        }
+    }
+
+    private Rows rows = Rows.EMPTY;
+
+    Rows getRows() {
+        return rows;
+    }
+
+    /** Replaces the whole table contents, firing a single data changed event. */
+    void setRows(Rows rows) {
+        this.rows = rows;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Replaces the rows with the given ids (ascending) by their rows in {@code patch}, as built by
+     * {@link Rows#forRows}, adding and dropping rows as needed. Fires row events for just those rows.
+     */
+    void patchRows(Rows patch, int[] rowIds) {
+        for (int rowId : rowIds) {
+            int from = rows.lowerBound(rowId);
+            int to = rows.lowerBound(rowId + 1);
+            int insertFrom = patch.lowerBound(rowId);
+            int insertTo = patch.lowerBound(rowId + 1);
+            if (from == to && insertFrom == insertTo) {
+                continue;
+            }
+            rows = rows.splice(from, to, patch, insertFrom, insertTo);
+            if (from == to) {
+                fireTableRowsInserted(from, from);
+            } else if (insertFrom == insertTo) {
+                fireTableRowsDeleted(from, from);
+            } else {
+                fireTableRowsUpdated(from, from);
+            }
+        }
+    }
+
+    @Override
+    public boolean matches(int row, TextQuery query, boolean[] visibleColumns) {
+        boolean chordRow = rows.chordRows()[row];
+        if (visibleColumns[chordRow ? SECOND_KEYSTROKE_KEY : FIRST_KEYSTROKE_KEY] && query.matchesLabel(ALL_KEYS.get(rows.keys()[row]))) {
+            return true;
+        }
+        for (int modifier = 0; modifier < MODIFIERS.length; modifier++) {
+            if (!visibleColumns[KEYSTROKE_KEY_COLUMNS + modifier]) {
+                continue;
+            }
+            int cell = row * MODIFIERS.length + modifier;
+            int start = rows.cellOffsets()[cell];
+            int end = rows.cellOffsets()[cell + 1];
+            if (start < end && query.matchesLabel(rows.labels().get(rows.cellKeyStrokes()[cell]))) {
+                return true;
+            }
+            for (int entry = start; entry < end; entry++) {
+                if (query.matchesName(rows.actionTable(), rows.cellActions()[entry])
+                        || chordRow && query.matchesLabel(rows.labels().get(rows.cellFirstKeyStrokes()[entry]))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Chord rows test each chord ending on the cell's keystroke. First-keystroke rows do not know which of their
+     * entries start a chord, so they are tested as single keystrokes.
+     */
+    @Override
+    public boolean matches(int row, KeyStrokeQuery query) {
+        boolean chordRow = rows.chordRows()[row];
+        for (int cell = row * MODIFIERS.length; cell < (row + 1) * MODIFIERS.length; cell++) {
+            int keyStroke = rows.cellKeyStrokes()[cell];
+            for (int entry = rows.cellOffsets()[cell]; entry < rows.cellOffsets()[cell + 1]; entry++) {
+                if (chordRow ? query.matches(rows.cellFirstKeyStrokes()[entry], keyStroke) : query.matches(keyStroke, KeyStrokeCodes.NONE)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return KEYMAP_COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return KEYMAP_COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return columnIndex < KEYSTROKE_KEY_COLUMNS ? String.class : KeyMapCell.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        boolean chordRow = rows.chordRows()[row];
+        if (column == FIRST_KEYSTROKE_KEY) {
+            return chordRow ? "" : ALL_KEYS.get(rows.keys()[row]);
+        }
+        if (column == SECOND_KEYSTROKE_KEY) {
+            return chordRow ? ALL_KEYS.get(rows.keys()[row]) : "";
+        }
+        int cell = row * MODIFIERS.length + column - KEYSTROKE_KEY_COLUMNS;
+        int start = rows.cellOffsets()[cell];
+        int end = rows.cellOffsets()[cell + 1];
+        if (start == end) {
+            return null;
+        }
+        String[] firstKeyStrokeLabels = chordRow ? new String[end - start] : null;
+        String[] actionNames = new String[end - start];
+        for (int entry = start; entry < end; entry++) {
+            if (chordRow) {
+                firstKeyStrokeLabels[entry - start] = rows.labels().get(rows.cellFirstKeyStrokes()[entry]);
+            }
+            actionNames[entry - start] = rows.actionTable().name(rows.cellActions()[entry]);
+        }
+        return new KeyMapCell(rows.labels().get(rows.cellKeyStrokes()[cell]), firstKeyStrokeLabels, actionNames);
+    }
+}
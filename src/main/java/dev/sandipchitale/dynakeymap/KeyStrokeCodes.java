@@ -0,0 +1,74 @@
+package dev.sandipchitale.dynakeymap;
+
+import javax.swing.KeyStroke;
+import java.awt.event.KeyEvent;
+
+/**
+ * Packs a keystroke into an int so table models can keep keystrokes in primitive columns.
+ * <p>
+ * Layout: bits 0-20 key code (or key char for typed keystrokes), bit 21 extended key code, bits 22-29 modifiers
+ * (the {@code *_DOWN_MASK} bits), bit 30 on-release, bit 31 typed. Extended key codes
+ * ({@code 0x01000000 + code point}, as recorded on non-US layouts) keep their code point in the key bits.
+ * {@link #NONE} (0) stands for "no keystroke".
+ */
+final class KeyStrokeCodes {
+
+    static final int NONE = 0;
+
+    private static final int KEY_MASK = 0x1FFFFF;
+    private static final int EXTENDED = 1 << 21;
+    private static final int EXTENDED_KEY_CODE_BASE = 0x01000000;
+    private static final int MODIFIERS_SHIFT = 22;
+    // The *_DOWN_MASK bits, SHIFT_DOWN_MASK (1 << 6) through ALT_GRAPH_DOWN_MASK (1 << 13).
+    private static final int DOWN_MASK_SHIFT = 6;
+    private static final int MODIFIERS_MASK = 0xFF;
+    private static final int ON_RELEASE = 1 << 30;
+    private static final int TYPED = 1 << 31;
+
+    /** @throws IllegalArgumentException if the key code does not fit the layout */
+    static int pack(KeyStroke keyStroke) {
+        if (keyStroke == null) {
+            return NONE;
+        }
+        int modifiers = ((keyStroke.getModifiers() >>> DOWN_MASK_SHIFT) & MODIFIERS_MASK) << MODIFIERS_SHIFT;
+        if (keyStroke.getKeyEventType() == KeyEvent.KEY_TYPED) {
+            return TYPED | modifiers | keyStroke.getKeyChar();
+        }
+        int keyCode = keyStroke.getKeyCode();
+        int key;
+        if (keyCode >= 0 && keyCode <= KEY_MASK) {
+            key = keyCode;
+        } else if (keyCode >= EXTENDED_KEY_CODE_BASE && keyCode - EXTENDED_KEY_CODE_BASE <= KEY_MASK) {
+            key = EXTENDED | (keyCode - EXTENDED_KEY_CODE_BASE);
+        } else {
+            throw new IllegalArgumentException("Key code out of range: 0x" + Integer.toHexString(keyCode));
+        }
+        return (keyStroke.isOnKeyRelease() ? ON_RELEASE : 0) | modifiers | key;
+    }
+
+    /** Returns the (AWT-interned) keystroke for a packed code, or {@code null} for {@link #NONE}. */
+    static KeyStroke unpack(int code) {
+        if (code == NONE) {
+            return null;
+        }
+        if ((code & TYPED) != 0) {
+            return KeyStroke.getKeyStroke(Character.valueOf((char) (code & KEY_MASK)), modifiers(code));
+        }
+        return KeyStroke.getKeyStroke(keyCode(code), modifiers(code), (code & ON_RELEASE) != 0);
+    }
+
+    static int keyCode(int code) {
+        if ((code & TYPED) != 0) {
+            return KeyEvent.VK_UNDEFINED;
+        }
+        return (code & EXTENDED) != 0 ? EXTENDED_KEY_CODE_BASE + (code & KEY_MASK) : code & KEY_MASK;
+    }
+
+    /** The keystroke's {@code *_DOWN_MASK} modifiers. */
+    static int modifiers(int code) {
+        return ((code >>> MODIFIERS_SHIFT) & MODIFIERS_MASK) << DOWN_MASK_SHIFT;
+    }
+
+    private KeyStrokeCodes() {
+    }
+}
@@ -0,0 +1,146 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.actionSystem.KeyboardShortcut;
+import com.intellij.openapi.util.SystemInfo;
+
+import javax.swing.KeyStroke;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keystroke texts in each {@link Style}, rendered once per distinct {@link KeyStroke} (AWT interns them) and cached
+ * for the life of the IDE. The set of keystrokes is bounded by the keys and modifier combinations in use.
+ */
+final class KeyStrokeFormat {
+
+    enum Style {
+        /** {@code ctrl shift A}: grid labels, and single keystrokes in exports. */
+        COMPACT,
+        /** {@code [ ctrl shift A ]}: Action Map labels, search text, and chord keystrokes in exports. */
+        BRACKETED,
+        /** {@code ⌃⇧A}: macOS glyphs in the order macOS menus use. */
+        SYMBOLS
+    }
+
+    private record Texts(String compact, String bracketed, String symbols) {
+    }
+
+    private static final Map<KeyStroke, Texts> TEXTS = new ConcurrentHashMap<>();
+
+    // Keys drawn as glyphs, by key name. Every glyph stands for one key, so no two keystrokes read the same; keys
+    // without one (function and keypad keys, for instance) keep their names.
+    private static final Map<String, String> KEY_SYMBOLS = Map.ofEntries(
+            Map.entry("ENTER", "↩"),
+            Map.entry("BACK_SPACE", "⌫"),
+            Map.entry("DELETE", "⌦"),
+            Map.entry("ESCAPE", "⎋"),
+            Map.entry("TAB", "⇥"),
+            Map.entry("SPACE", "␣"),
+            Map.entry("UP", "↑"),
+            Map.entry("DOWN", "↓"),
+            Map.entry("LEFT", "←"),
+            Map.entry("RIGHT", "→"),
+            Map.entry("PAGE_UP", "⇞"),
+            Map.entry("PAGE_DOWN", "⇟"),
+            Map.entry("HOME", "↖"),
+            Map.entry("END", "↘"),
+            Map.entry("CAPS_LOCK", "⇪"),
+            Map.entry("CLEAR", "⌧"),
+            Map.entry("BACK_QUOTE", "`"),
+            Map.entry("MINUS", "-"),
+            Map.entry("EQUALS", "="),
+            Map.entry("OPEN_BRACKET", "["),
+            Map.entry("CLOSE_BRACKET", "]"),
+            Map.entry("BACK_SLASH", "\\"),
+            Map.entry("SEMICOLON", ";"),
+            Map.entry("QUOTE", "'"),
+            Map.entry("COMMA", ","),
+            Map.entry("PERIOD", "."),
+            Map.entry("SLASH", "/"),
+            Map.entry("PLUS", "+"),
+            Map.entry("ASTERISK", "*"),
+            Map.entry("QUOTEDBL", "\""),
+            Map.entry("LESS", "<"),
+            Map.entry("GREATER", ">"),
+            Map.entry("BRACELEFT", "{"),
+            Map.entry("BRACERIGHT", "}"),
+            Map.entry("COLON", ":"),
+            Map.entry("UNDERSCORE", "_"),
+            Map.entry("EXCLAMATION_MARK", "!"),
+            Map.entry("AT", "@"),
+            Map.entry("NUMBER_SIGN", "#"),
+            Map.entry("DOLLAR", "$"),
+            Map.entry("CIRCUMFLEX", "^"),
+            Map.entry("AMPERSAND", "&"),
+            Map.entry("LEFT_PARENTHESIS", "("),
+            Map.entry("RIGHT_PARENTHESIS", ")"));
+
+    static String format(KeyStroke keyStroke, Style style) {
+        Texts texts = TEXTS.computeIfAbsent(keyStroke, KeyStrokeFormat::render);
+        return switch (style) {
+            case COMPACT -> texts.compact();
+            case BRACKETED -> texts.bracketed();
+            case SYMBOLS -> texts.symbols();
+        };
+    }
+
+    static String compact(KeyStroke keyStroke) {
+        return format(keyStroke, Style.COMPACT);
+    }
+
+    static String bracketed(KeyStroke keyStroke) {
+        return format(keyStroke, Style.BRACKETED);
+    }
+
+    /** The style the tool window shows shortcuts in where nothing is matched against their text. */
+    static Style displayStyle() {
+        return SystemInfo.isMac ? Style.SYMBOLS : Style.BRACKETED;
+    }
+
+    /** Both keystrokes of a chord in the given style, separated by a space; {@code second} may be {@code null}. */
+    static String format(KeyStroke first, KeyStroke second, Style style) {
+        String text = format(first, style);
+        return second == null ? text : text + " " + format(second, style);
+    }
+
+    /** The shortcut as the exporters and comparators write it: {@code ctrl A}, or {@code [ ctrl K ] [ ctrl C ]}. */
+    static String text(KeyboardShortcut keyboardShortcut) {
+        KeyStroke second = keyboardShortcut.getSecondKeyStroke();
+        return second == null
+                ? compact(keyboardShortcut.getFirstKeyStroke())
+                : format(keyboardShortcut.getFirstKeyStroke(), second, Style.BRACKETED);
+    }
+
+    private static Texts render(KeyStroke keyStroke) {
+        String compact = keyStroke.toString().replace("pressed ", "");
+        return new Texts(compact, "[ " + compact + " ]", symbols(keyStroke, compact));
+    }
+
+    private static String symbols(KeyStroke keyStroke, String compact) {
+        int modifiers = keyStroke.getModifiers();
+        // Typed and released keystrokes, and AltGr, keep their words so no two keystrokes read the same.
+        if (keyStroke.getKeyEventType() != KeyEvent.KEY_PRESSED || (modifiers & InputEvent.ALT_GRAPH_DOWN_MASK) != 0) {
+            return compact;
+        }
+        StringBuilder sb = new StringBuilder();
+        if ((modifiers & InputEvent.CTRL_DOWN_MASK) != 0) {
+            sb.append('⌃');
+        }
+        if ((modifiers & InputEvent.ALT_DOWN_MASK) != 0) {
+            sb.append('⌥');
+        }
+        if ((modifiers & InputEvent.SHIFT_DOWN_MASK) != 0) {
+            sb.append('⇧');
+        }
+        if ((modifiers & InputEvent.META_DOWN_MASK) != 0) {
+            sb.append('⌘');
+        }
+        String key = compact.substring(compact.lastIndexOf(' ') + 1);
+        return sb.append(KEY_SYMBOLS.getOrDefault(key, key)).toString();
+    }
+
+    private KeyStrokeFormat() {
+    }
+}
@@ -0,0 +1,179 @@
+package dev.sandipchitale.dynakeymap;
+
+import java.awt.event.InputEvent;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Structured keystroke filter, compiled into tests on packed keystroke codes so no keystroke is formatted per row.
+ * <p>
+ * A query is one or more whitespace separated terms, all of which must hold:
+ * <pre>
+ *   term     := ("first" | "second" | "any") ":" stroke
+ *   stroke   := "none" | (modifier "+")* key
+ *   modifier := "ctrl" | "alt" | "shift" | "meta" | "altgr" | "*"    ("*" allows further modifiers)
+ *   key      := "*" | name | "[" item ("," item)* "]"
+ *   item     := name | name "-" name                                  (a range of key codes)
+ * </pre>
+ * Key names are those of the Keymap grid (e.g. {@code F}, {@code ENTER}, {@code F12}). Examples:
+ * {@code first:ctrl+alt+* second:[0-9]}, {@code any:shift+*+[F1-F12]}, {@code first:none} (unbound actions).
+ */
+final class KeyStrokeQuery {
+
+    private static final int FIRST = 0;
+    private static final int SECOND = 1;
+    private static final int ANY = 2;
+    private static final String[] SELECTORS = {"first:", "second:", "any:"};
+
+    private static final int MODIFIERS_MASK = InputEvent.SHIFT_DOWN_MASK | InputEvent.CTRL_DOWN_MASK
+            | InputEvent.META_DOWN_MASK | InputEvent.ALT_DOWN_MASK | InputEvent.ALT_GRAPH_DOWN_MASK;
+
+    /**
+     * @param none         matches the absence of a keystroke only
+     * @param modifiers    modifiers the keystroke must have
+     * @param anyModifiers whether further modifiers are allowed
+     * @param keyCodes     allowed key codes, {@code null} for any key
+     */
+    private record StrokePattern(boolean none, int modifiers, boolean anyModifiers, BitSet keyCodes) {
+
+        boolean matches(int code) {
+            if (code == KeyStrokeCodes.NONE) {
+                return none;
+            }
+            if (none) {
+                return false;
+            }
+            int codeModifiers = KeyStrokeCodes.modifiers(code) & MODIFIERS_MASK;
+            boolean modifiersMatch = anyModifiers ? (codeModifiers & modifiers) == modifiers : codeModifiers == modifiers;
+            return modifiersMatch && (keyCodes == null || keyCodes.get(KeyStrokeCodes.keyCode(code)));
+        }
+    }
+
+    private record Term(int selector, StrokePattern pattern) {
+    }
+
+    private final List<Term> terms;
+
+    private KeyStrokeQuery(List<Term> terms) {
+        this.terms = terms;
+    }
+
+    /** Whether the text is meant as a keystroke query, i.e. every term starts with a stroke selector. */
+    static boolean isQuery(String text) {
+        String[] tokens = text.trim().split("\\s+");
+        for (String token : tokens) {
+            if (selector(token.toLowerCase(Locale.ROOT)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** @throws IllegalArgumentException describing the first malformed term */
+    static KeyStrokeQuery parse(String text) {
+        List<Term> terms = new ArrayList<>();
+        for (String token : text.trim().split("\\s+")) {
+            String term = token.toLowerCase(Locale.ROOT);
+            int selector = selector(term);
+            if (selector < 0) {
+                throw new IllegalArgumentException("Expected first:, second: or any: in " + token);
+            }
+            terms.add(new Term(selector, stroke(term.substring(SELECTORS[selector].length()))));
+        }
+        return new KeyStrokeQuery(List.copyOf(terms));
+    }
+
+    private static int selector(String term) {
+        for (int selector = 0; selector < SELECTORS.length; selector++) {
+            if (term.startsWith(SELECTORS[selector])) {
+                return selector;
+            }
+        }
+        return -1;
+    }
+
+    private static StrokePattern stroke(String stroke) {
+        if (stroke.equals("none")) {
+            return new StrokePattern(true, 0, false, null);
+        }
+        if (stroke.isEmpty()) {
+            throw new IllegalArgumentException("Missing keystroke");
+        }
+        // A trailing "+" is the plus key rather than a separator.
+        String[] parts = stroke.endsWith("+") ? (stroke.substring(0, stroke.length() - 1) + "plus").split("\\+") : stroke.split("\\+");
+        int modifiers = 0;
+        boolean anyModifiers = false;
+        for (int i = 0; i < parts.length - 1; i++) {
+            if (parts[i].equals("*")) {
+                anyModifiers = true;
+                continue;
+            }
+            int modifier = modifierMask(parts[i]);
+            if (modifier == 0) {
+                throw new IllegalArgumentException("Unknown modifier " + parts[i]);
+            }
+            modifiers |= modifier;
+        }
+        return new StrokePattern(false, modifiers, anyModifiers, keyCodes(parts[parts.length - 1]));
+    }
+
+    /** Returns the extended mask of a lower case modifier name, or {@code 0} if the name is not a modifier. */
+    static int modifierMask(String name) {
+        return switch (name) {
+            case "ctrl", "control" -> InputEvent.CTRL_DOWN_MASK;
+            case "alt", "option" -> InputEvent.ALT_DOWN_MASK;
+            case "shift" -> InputEvent.SHIFT_DOWN_MASK;
+            case "meta", "cmd", "command" -> InputEvent.META_DOWN_MASK;
+            case "altgr", "altgraph" -> InputEvent.ALT_GRAPH_DOWN_MASK;
+            default -> 0;
+        };
+    }
+
+    private static BitSet keyCodes(String key) {
+        if (key.equals("*")) {
+            return null;
+        }
+        BitSet keyCodes = new BitSet();
+        if (key.startsWith("[") && key.endsWith("]") && key.length() > 2) {
+            for (String item : key.substring(1, key.length() - 1).split(",")) {
+                int dash = item.indexOf('-', 1);
+                if (dash > 0) {
+                    int from = keyCode(item.substring(0, dash));
+                    int to = keyCode(item.substring(dash + 1));
+                    keyCodes.set(Math.min(from, to), Math.max(from, to) + 1);
+                } else {
+                    keyCodes.set(keyCode(item));
+                }
+            }
+        } else {
+            keyCodes.set(keyCode(key));
+        }
+        return keyCodes;
+    }
+
+    private static int keyCode(String name) {
+        int key = KeyMapLayout.ALL_KEYS.indexOf(name.toUpperCase(Locale.ROOT));
+        if (key < 0) {
+            throw new IllegalArgumentException("Unknown key " + name);
+        }
+        return KeyMapLayout.KEY_CODES[key];
+    }
+
+    /** Tests a binding given its packed first and second keystrokes ({@link KeyStrokeCodes#NONE} if absent). */
+    boolean matches(int firstKeyStroke, int secondKeyStroke) {
+        for (Term term : terms) {
+            boolean matches = switch (term.selector()) {
+                case FIRST -> term.pattern().matches(firstKeyStroke);
+                case SECOND -> term.pattern().matches(secondKeyStroke);
+                case ANY -> term.pattern().matches(firstKeyStroke) || term.pattern().matches(secondKeyStroke);
+                default -> throw new IllegalStateException("Unknown selector " + term.selector());
+            };
+            if (!matches) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,24 +1,23 @@
 package dev.sandipchitale.dynakeymap;
 
-import com.intellij.diff.DiffContentFactory;
-import com.intellij.diff.DiffManager;
-import com.intellij.diff.requests.SimpleDiffRequest;
-import com.intellij.openapi.actionSystem.ActionManager;
-import com.intellij.openapi.actionSystem.KeyboardShortcut;
-import com.intellij.openapi.actionSystem.Shortcut;
+import com.intellij.ide.util.ChooseElementsDialog;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.keymap.Keymap;
-import com.intellij.openapi.keymap.ex.KeymapManagerEx;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import javax.swing.Icon;
 import java.util.List;
-import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
-/** Renders two keymaps as text and shows them side by side in the IDE diff viewer. */
+/**
+ * Compares two keymaps action by action and shows the differences in a {@link KeymapDiffDialog}, or any number of
+ * keymaps side by side in a {@link KeymapMatrixDialog}.
+ */
 final class KeymapComparator {
 
     static void compare(Project project, Keymap left, Keymap right) {
@@ -31,48 +30,56 @@ final class KeymapComparator {
             return;
         }
 
-        DiffContentFactory contentFactory = DiffContentFactory.getInstance();
-        SimpleDiffRequest request = new SimpleDiffRequest(
-                "Keymap Diff: " + left.getName() + " ↔ " + right.getName(),
-                contentFactory.create(buildKeymapText(left)),
-                contentFactory.create(buildKeymapText(right)),
-                left.getName(),
-                right.getName()
-        );
-        DiffManager.getInstance().showDiff(project, request);
+        ReadAction.nonBlocking(() -> {
+                    KeymapSnapshots snapshots = KeymapSnapshots.getInstance();
+                    return KeymapDiff.compute(snapshots.get(left), snapshots.get(right));
+                })
+                .expireWith(project)
+                .finishOnUiThread(ModalityState.nonModal(),
+                        diff -> new KeymapDiffDialog(project, diff, describe(left), describe(right)).show())
+                .submit(AppExecutorUtil.getAppExecutorService());
     }
 
-    private static String buildKeymapText(Keymap keymap) {
-        ActionManager actionManager = ActionManager.getInstance();
-        SortedMap<String, String> lineByKey = new TreeMap<>();
-        for (String actionId : keymap.getActionIdList()) {
-            List<String> normalized = new ArrayList<>();
-            for (Shortcut s : keymap.getShortcuts(actionId)) {
-                if (s instanceof KeyboardShortcut ks) {
-                    normalized.add(Shortcuts.normalizeShortcut(ks));
-                }
+    /** Lets the user pick the keymaps to compare out of {@code keymaps}, then shows their matrix. */
+    static void compareMany(Project project, List<Keymap> keymaps) {
+        ChooseElementsDialog<Keymap> chooser = new ChooseElementsDialog<>(project, keymaps, "Compare Keymaps",
+                "Select the keymaps to compare", true) {
+            @Override
+            protected String getItemText(Keymap keymap) {
+                return keymap.getPresentableName();
             }
-            Collections.sort(normalized);
-            String actionName = Shortcuts.actionDisplayName(actionManager, actionId);
-            String key = actionName + "\t(" + actionId + ")";
-            lineByKey.put(key, normalized.isEmpty() ? "" : String.join(" | ", normalized));
-        }
 
-        StringBuilder sb = new StringBuilder();
-        String keymapName = keymap.getName();
-        Keymap activeKeymap = KeymapManagerEx.getInstanceEx().getActiveKeymap();
-        if (activeKeymap.getName().equals(keymapName)) {
-            keymapName = keymapName + " (active)";
+            @Override
+            protected Icon getItemIcon(Keymap keymap) {
+                return null;
+            }
+        };
+        List<Keymap> selected = chooser.showAndGetResult();
+        if (selected.size() < 2) {
+            if (chooser.isOK()) {
+                Messages.showWarningDialog(project, "Please select at least two keymaps to compare.", "Compare Keymaps");
+            }
+            return;
         }
+
+        new Task.Backgroundable(project, "Comparing keymaps", true) {
+            private KeymapMatrix matrix;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                matrix = KeymapMatrix.compute(selected, indicator);
+            }
+
+            @Override
+            public void onSuccess() {
+                new KeymapMatrixDialog(project, matrix).show();
+            }
+        }.queue();
+    }
+
+    private static String describe(Keymap keymap) {
         Keymap keymapParent = keymap.getParent();
-        if (keymapParent != null) {
-            keymapName += " ( Based on " + keymapParent.getName() + " )";
-        }
-        sb.append("Keymap: ").append(keymapName).append("\n");
-        for (Map.Entry<String, String> e : lineByKey.entrySet()) {
-            sb.append(e.getKey()).append(" = ").append(e.getValue()).append("\n");
-        }
-        return sb.toString();
+        return keymapParent == null ? keymap.getName() : keymap.getName() + " ( Based on " + keymapParent.getName() + " )";
     }
 
     private KeymapComparator() {
@@ -0,0 +1,137 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.actionSystem.KeyboardShortcut;
+import com.intellij.openapi.actionSystem.Shortcut;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structural comparison of two keymap snapshots: a hash join on action id that classifies every action bound in
+ * either keymap. Only keyboard shortcuts are compared, and their order within an action does not matter. Actions
+ * unbound in both keymaps are left out. Rows are ordered by action name, then id.
+ *
+ * @param actionIds      id per row
+ * @param actionNames    display name per row, from the left keymap if it has the action
+ * @param statuses       classification per row
+ * @param leftShortcuts  the row's keyboard shortcuts in the left keymap, formatted and sorted
+ * @param rightShortcuts the row's keyboard shortcuts in the right keymap, formatted and sorted
+ * @param counts         number of rows per {@link Status}, by ordinal
+ */
+record KeymapDiff(String[] actionIds,
+                  String[] actionNames,
+                  Status[] statuses,
+                  String[] leftShortcuts,
+                  String[] rightShortcuts,
+                  int[] counts) {
+
+    enum Status {
+        ADDED("Added"), REMOVED("Removed"), CHANGED("Changed"), SAME("Same");
+
+        private final String label;
+
+        Status(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private static final Shortcut[] NO_SHORTCUTS = new Shortcut[0];
+
+    private record Row(String actionId, String actionName, Status status, Shortcut[] left, Shortcut[] right) {
+    }
+
+    int size() {
+        return actionIds.length;
+    }
+
+    int count(Status status) {
+        return counts[status.ordinal()];
+    }
+
+    static KeymapDiff compute(KeymapSnapshot left, KeymapSnapshot right) {
+        Map<String, Shortcut[]> rightShortcuts = right.shortcuts();
+        List<Row> rows = new ArrayList<>();
+        // Probe the right keymap with every action of the left one...
+        for (Map.Entry<String, Shortcut[]> entry : left.shortcuts().entrySet()) {
+            Shortcut[] leftKeyboardShortcuts = keyboardShortcuts(entry.getValue());
+            Shortcut[] rightKeyboardShortcuts = keyboardShortcuts(rightShortcuts.get(entry.getKey()));
+            Status status = classify(leftKeyboardShortcuts, rightKeyboardShortcuts);
+            if (status != null) {
+                rows.add(new Row(entry.getKey(), left.actionName(entry.getKey()), status, leftKeyboardShortcuts, rightKeyboardShortcuts));
+            }
+        }
+        // ... then pick up the actions only the right one has.
+        for (Map.Entry<String, Shortcut[]> entry : rightShortcuts.entrySet()) {
+            if (!left.shortcuts().containsKey(entry.getKey())) {
+                Shortcut[] rightKeyboardShortcuts = keyboardShortcuts(entry.getValue());
+                if (rightKeyboardShortcuts.length > 0) {
+                    rows.add(new Row(entry.getKey(), right.actionName(entry.getKey()), Status.ADDED, NO_SHORTCUTS, rightKeyboardShortcuts));
+                }
+            }
+        }
+        rows.sort(Comparator.comparing(Row::actionName).thenComparing(Row::actionId));
+
+        int size = rows.size();
+        String[] actionIds = new String[size];
+        String[] actionNames = new String[size];
+        Status[] statuses = new Status[size];
+        String[] leftTexts = new String[size];
+        String[] rightTexts = new String[size];
+        int[] counts = new int[Status.values().length];
+        for (int i = 0; i < size; i++) {
+            Row row = rows.get(i);
+            actionIds[i] = row.actionId();
+            actionNames[i] = row.actionName();
+            statuses[i] = row.status();
+            leftTexts[i] = format(row.left());
+            rightTexts[i] = format(row.right());
+            counts[row.status().ordinal()]++;
+        }
+        return new KeymapDiff(actionIds, actionNames, statuses, leftTexts, rightTexts, counts);
+    }
+
+    /** @return {@code null} if the action is unbound on both sides */
+    private static Status classify(Shortcut[] left, Shortcut[] right) {
+        if (left.length == 0) {
+            return right.length == 0 ? null : Status.ADDED;
+        }
+        if (right.length == 0) {
+            return Status.REMOVED;
+        }
+        if (Arrays.equals(left, right)) {
+            return Status.SAME;
+        }
+        return new HashSet<>(Arrays.asList(left)).equals(new HashSet<>(Arrays.asList(right))) ? Status.SAME : Status.CHANGED;
+    }
+
+    /** The keyboard shortcuts among the given ones, which are usually all of them. */
+    private static Shortcut[] keyboardShortcuts(Shortcut[] shortcuts) {
+        if (shortcuts == null || shortcuts.length == 0) {
+            return NO_SHORTCUTS;
+        }
+        for (Shortcut shortcut : shortcuts) {
+            if (!(shortcut instanceof KeyboardShortcut)) {
+                return Arrays.stream(shortcuts).filter(KeyboardShortcut.class::isInstance).toArray(Shortcut[]::new);
+            }
+        }
+        return shortcuts;
+    }
+
+    private static String format(Shortcut[] shortcuts) {
+        String[] texts = new String[shortcuts.length];
+        for (int i = 0; i < shortcuts.length; i++) {
+            texts[i] = KeyStrokeFormat.text((KeyboardShortcut) shortcuts[i]);
+        }
+        Arrays.sort(texts);
+        return String.join(" | ", texts);
+    }
+}
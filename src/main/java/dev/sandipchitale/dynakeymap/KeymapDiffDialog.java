@@ -0,0 +1,80 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.components.JBCheckBox;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.table.JBTable;
+import com.intellij.util.ui.JBUI;
+import com.intellij.util.ui.components.BorderLayoutPanel;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.Action;
+import javax.swing.JComponent;
+import javax.swing.RowFilter;
+import javax.swing.table.TableRowSorter;
+
+/**
+ * Shows a {@link KeymapDiff} as a sortable table, with the count of every status above it. Unchanged actions are
+ * hidden until asked for.
+ */
+final class KeymapDiffDialog extends DialogWrapper {
+
+    private final KeymapDiff diff;
+    private final KeymapDiffTableModel tableModel;
+
+    KeymapDiffDialog(Project project, KeymapDiff diff, String leftKeymapName, String rightKeymapName) {
+        super(project, true, IdeModalityType.MODELESS);
+        this.diff = diff;
+        this.tableModel = new KeymapDiffTableModel(diff, leftKeymapName, rightKeymapName);
+        setTitle("Keymap Diff: " + leftKeymapName + " ↔ " + rightKeymapName);
+        setOKButtonText("Close");
+        init();
+    }
+
+    @Override
+    protected JComponent createCenterPanel() {
+        JBTable table = new JBTable(tableModel);
+        TableRowSorter<KeymapDiffTableModel> sorter = new TableRowSorter<>(tableModel);
+        table.setRowSorter(sorter);
+        table.getColumnModel().getColumn(KeymapDiffTableModel.STATUS_COLUMN).setMaxWidth(JBUI.scale(90));
+
+        JBCheckBox showSameCheckBox = new JBCheckBox("Show unchanged");
+        RowFilter<KeymapDiffTableModel, Integer> changedOnly = new RowFilter<KeymapDiffTableModel, Integer>() {
+            @Override
+            public boolean include(Entry<? extends KeymapDiffTableModel, ? extends Integer> entry) {
+                return entry.getModel().status(entry.getIdentifier()) != KeymapDiff.Status.SAME;
+            }
+        };
+        sorter.setRowFilter(changedOnly);
+        showSameCheckBox.addActionListener(e -> sorter.setRowFilter(showSameCheckBox.isSelected() ? null : changedOnly));
+
+        BorderLayoutPanel summaryPanel = new BorderLayoutPanel();
+        summaryPanel.setBorder(JBUI.Borders.emptyBottom(4));
+        summaryPanel.addToLeft(new JBLabel(summary()));
+        summaryPanel.addToRight(showSameCheckBox);
+
+        BorderLayoutPanel panel = new BorderLayoutPanel();
+        panel.setPreferredSize(JBUI.size(1000, 700));
+        panel.addToTop(summaryPanel);
+        panel.addToCenter(ScrollPaneFactory.createScrollPane(table));
+        return panel;
+    }
+
+    private String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (KeymapDiff.Status status : KeymapDiff.Status.values()) {
+            if (!sb.isEmpty()) {
+                sb.append("    ");
+            }
+            sb.append(status).append(": ").append(diff.count(status));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    protected Action @NotNull [] createActions() {
+        return new Action[]{getOKAction()};
+    }
+}
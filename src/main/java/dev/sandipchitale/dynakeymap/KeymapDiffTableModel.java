@@ -0,0 +1,57 @@
+package dev.sandipchitale.dynakeymap;
+
+import javax.swing.table.AbstractTableModel;
+
+/** One row per action of a {@link KeymapDiff}; the shortcut columns are named after the compared keymaps. */
+final class KeymapDiffTableModel extends AbstractTableModel {
+
+    static final int STATUS_COLUMN = 0;
+    static final int ACTION_COLUMN = 1;
+    static final int LEFT_SHORTCUTS_COLUMN = 2;
+    static final int RIGHT_SHORTCUTS_COLUMN = 3;
+    static final int ACTION_ID_COLUMN = 4;
+
+    private final KeymapDiff diff;
+    private final String[] columnNames;
+
+    KeymapDiffTableModel(KeymapDiff diff, String leftKeymapName, String rightKeymapName) {
+        this.diff = diff;
+        this.columnNames = new String[]{"Status", "Action", leftKeymapName, rightKeymapName, "ActionId"};
+    }
+
+    KeymapDiff.Status status(int row) {
+        return diff.statuses()[row];
+    }
+
+    @Override
+    public int getRowCount() {
+        return diff.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == STATUS_COLUMN ? KeymapDiff.Status.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return switch (column) {
+            case STATUS_COLUMN -> diff.statuses()[row];
+            case ACTION_COLUMN -> diff.actionNames()[row];
+            case LEFT_SHORTCUTS_COLUMN -> diff.leftShortcuts()[row];
+            case RIGHT_SHORTCUTS_COLUMN -> diff.rightShortcuts()[row];
+            case ACTION_ID_COLUMN -> diff.actionIds()[row];
+            default -> throw new IndexOutOfBoundsException(column);
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.application.ApplicationStarter;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.keymap.Keymap;
+import com.intellij.openapi.keymap.ex.KeymapManagerEx;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless export for CI: {@code <ide> dynakeymap-export [--bound-keys-only] <keymap> <html|pdf|json> <output>}.
+ * <p>
+ * The keymap is looked up by name or presentable name. The export goes through the same writers as the tool window
+ * but never touches Swing: no table models, no tool window, and nothing is opened afterwards. The IDE exits with
+ * status 0 on success, 1 on bad arguments and 2 if the export failed.
+ */
+public final class KeymapExportStarter implements ApplicationStarter {
+
+    private static final String BOUND_KEYS_ONLY = "--bound-keys-only";
+    private static final String USAGE = "Usage: dynakeymap-export [" + BOUND_KEYS_ONLY + "] <keymap> <html|pdf|json> <output>";
+
+    @Override
+    public int getRequiredModality() {
+        return NOT_IN_EDT;
+    }
+
+    @Override
+    public void main(@NotNull List<String> args) {
+        // The first argument is the command itself.
+        List<String> parameters = new ArrayList<>(args.subList(Math.min(1, args.size()), args.size()));
+        boolean boundKeysOnly = parameters.remove(BOUND_KEYS_ONLY);
+        if (parameters.size() != 3) {
+            exit(1, USAGE);
+        }
+        Keymap keymap = keymap(parameters.get(0));
+        if (keymap == null) {
+            exit(1, "No keymap named " + parameters.get(0));
+        }
+        ExportFormat format = ExportFormat.of(parameters.get(1));
+        if (format == null) {
+            exit(1, "Unknown format " + parameters.get(1) + "\n" + USAGE);
+        }
+        Path path = Path.of(parameters.get(2)).toAbsolutePath();
+
+        try {
+            KeymapSnapshot snapshot = ReadAction.compute(() -> KeymapSnapshots.getInstance().get(keymap));
+            // Only the HTML page shows the Keymap grid.
+            KeyMapTableModel.Rows keyMapRows = format == ExportFormat.HTML ? KeyMapTableModel.Rows.build(snapshot, boundKeysOnly) : null;
+            Path parent = path.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            format.write(snapshot, keyMapRows, keymap.getPresentableName(), path, new EmptyProgressIndicator());
+        } catch (IOException e) {
+            exit(2, "Could not write " + path + ": " + e.getMessage());
+        } catch (UncheckedIOException e) {
+            exit(2, "Could not write " + path + ": " + e.getCause().getMessage());
+        } catch (RuntimeException e) {
+            // Anything else the collect or the writers throw still ends with the documented status.
+            exit(2, "Could not export " + path + ": " + e);
+        }
+        exit(0, "Exported " + keymap.getPresentableName() + " to " + path);
+    }
+
+    private static Keymap keymap(String name) {
+        KeymapManagerEx keymapManager = KeymapManagerEx.getInstanceEx();
+        Keymap keymap = keymapManager.getKeymap(name);
+        if (keymap != null) {
+            return keymap;
+        }
+        for (Keymap candidate : keymapManager.getAllKeymaps()) {
+            if (candidate.getPresentableName().equals(name)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static void exit(int status, String message) {
+        (status == 0 ? System.out : System.err).println(message);
+        System.exit(status);
+    }
+}
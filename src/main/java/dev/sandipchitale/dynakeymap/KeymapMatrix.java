@@ -0,0 +1,189 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.concurrency.SensitiveProgressWrapper;
+import com.intellij.openapi.actionSystem.KeyboardShortcut;
+import com.intellij.openapi.actionSystem.Shortcut;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.keymap.Keymap;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
+import com.intellij.util.concurrency.AppExecutorUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * N-way comparison of keymaps: one row per action bound in any of them, one column per keymap. Columns hold ids into
+ * a dictionary of distinct shortcut sets rather than the sets themselves, so the matrix stays small even across every
+ * installed keymap, and comparing cells is comparing ints.
+ *
+ * @param keymapNames   name per column
+ * @param actionIds     id per row, rows ordered by action name then id
+ * @param actionNames   display name per row
+ * @param columns       per column, the dictionary id of every row's keyboard shortcuts ({@link #UNBOUND} if none)
+ * @param shortcutSets  the dictionary: formatted, sorted keyboard shortcuts by id
+ * @param consensus     per row, the dictionary id most columns agree on
+ * @param disagreements rows where not all columns agree
+ */
+record KeymapMatrix(String[] keymapNames,
+                    String[] actionIds,
+                    String[] actionNames,
+                    int[][] columns,
+                    String[] shortcutSets,
+                    int[] consensus,
+                    BitSet disagreements) {
+
+    static final int UNBOUND = 0;
+
+    // Building a column is cheap; more workers than this only add contention on the dictionary.
+    private static final int WORKERS = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors() - 1));
+
+    int rows() {
+        return actionIds.length;
+    }
+
+    String shortcuts(int row, int column) {
+        return shortcutSets[columns[column][row]];
+    }
+
+    /** Whether the cell differs from what most keymaps have for the action. */
+    boolean dissents(int row, int column) {
+        return columns[column][row] != consensus[row];
+    }
+
+    /**
+     * Collects the keymaps' snapshots in parallel non-blocking read actions, then builds the columns in parallel.
+     */
+    static KeymapMatrix compute(List<Keymap> keymaps, ProgressIndicator indicator) {
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("DynaKeyMap Matrix", WORKERS);
+        try {
+            List<KeymapSnapshot> snapshots = awaitAll(keymaps.stream()
+                    .map(keymap -> submit(executor, indicator,
+                            () -> ReadAction.nonBlocking(() -> KeymapSnapshots.getInstance().get(keymap)).executeSynchronously()))
+                    .toList(), indicator);
+
+            // Row dimension: every action with a keyboard shortcut in any keymap.
+            Map<String, String> namesById = new HashMap<>();
+            for (KeymapSnapshot snapshot : snapshots) {
+                for (Map.Entry<String, Shortcut[]> entry : snapshot.shortcuts().entrySet()) {
+                    if (hasKeyboardShortcut(entry.getValue())) {
+                        namesById.putIfAbsent(entry.getKey(), snapshot.actionName(entry.getKey()));
+                    }
+                }
+            }
+            String[] actionIds = namesById.keySet().toArray(String[]::new);
+            Arrays.sort(actionIds, Comparator.comparing((String id) -> namesById.get(id)).thenComparing(Comparator.naturalOrder()));
+            String[] actionNames = new String[actionIds.length];
+            for (int row = 0; row < actionIds.length; row++) {
+                actionNames[row] = namesById.get(actionIds[row]);
+            }
+
+            Map<String, Integer> dictionary = new ConcurrentHashMap<>();
+            dictionary.put("", UNBOUND);
+            AtomicInteger nextId = new AtomicInteger(UNBOUND + 1);
+            List<CompletableFuture<int[]>> columnFutures = new ArrayList<>(snapshots.size());
+            for (KeymapSnapshot snapshot : snapshots) {
+                columnFutures.add(submit(executor, indicator, () -> column(snapshot, actionIds, dictionary, nextId)));
+            }
+            int[][] columns = awaitAll(columnFutures, indicator).toArray(int[][]::new);
+
+            String[] shortcutSets = new String[nextId.get()];
+            dictionary.forEach((shortcuts, id) -> shortcutSets[id] = shortcuts);
+
+            int[] consensus = new int[actionIds.length];
+            BitSet disagreements = new BitSet(actionIds.length);
+            for (int row = 0; row < actionIds.length; row++) {
+                consensus[row] = consensus(columns, row);
+                for (int[] column : columns) {
+                    if (column[row] != consensus[row]) {
+                        disagreements.set(row);
+                        break;
+                    }
+                }
+            }
+            return new KeymapMatrix(keymaps.stream().map(Keymap::getName).toArray(String[]::new),
+                    actionIds, actionNames, columns, shortcutSets, consensus, disagreements);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static int[] column(KeymapSnapshot snapshot, String[] actionIds, Map<String, Integer> dictionary, AtomicInteger nextId) {
+        int[] column = new int[actionIds.length];
+        for (int row = 0; row < actionIds.length; row++) {
+            Shortcut[] shortcuts = snapshot.shortcuts().get(actionIds[row]);
+            String formatted = shortcuts == null ? "" : format(shortcuts);
+            // Ids are handed out in arrival order; only their identity matters.
+            column[row] = dictionary.computeIfAbsent(formatted, key -> nextId.getAndIncrement());
+        }
+        return column;
+    }
+
+    /** The most frequent id in the row, the leftmost column winning ties. */
+    private static int consensus(int[][] columns, int row) {
+        int best = columns[0][row];
+        int bestCount = 0;
+        for (int candidate = 0; candidate < columns.length; candidate++) {
+            int id = columns[candidate][row];
+            int count = 0;
+            for (int[] column : columns) {
+                if (column[row] == id) {
+                    count++;
+                }
+            }
+            if (count > bestCount) {
+                best = id;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    private static boolean hasKeyboardShortcut(Shortcut[] shortcuts) {
+        for (Shortcut shortcut : shortcuts) {
+            if (shortcut instanceof KeyboardShortcut) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String format(Shortcut[] shortcuts) {
+        List<String> texts = new ArrayList<>(shortcuts.length);
+        for (Shortcut shortcut : shortcuts) {
+            if (shortcut instanceof KeyboardShortcut keyboardShortcut) {
+                texts.add(KeyStrokeFormat.text(keyboardShortcut));
+            }
+        }
+        texts.sort(null);
+        return String.join(" | ", texts);
+    }
+
+    private static <T> CompletableFuture<T> submit(ExecutorService executor, ProgressIndicator indicator, Supplier<T> job) {
+        return CompletableFuture.supplyAsync(
+                () -> ProgressManager.getInstance().runProcess(job::get, new SensitiveProgressWrapper(indicator)), executor);
+    }
+
+    private static <T> List<T> awaitAll(List<CompletableFuture<T>> futures, ProgressIndicator indicator) {
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(ProgressIndicatorUtils.awaitWithCheckCanceled(future, indicator));
+            }
+        } finally {
+            futures.forEach(future -> future.cancel(false));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,86 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.ui.JBColor;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.components.JBCheckBox;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.table.JBTable;
+import com.intellij.util.ui.JBUI;
+import com.intellij.util.ui.components.BorderLayoutPanel;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.Action;
+import javax.swing.JComponent;
+import javax.swing.JTable;
+import javax.swing.RowFilter;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableRowSorter;
+import java.awt.Component;
+
+/**
+ * Shows a {@link KeymapMatrix} as a sortable table. Cells that differ from what most of the keymaps have for the
+ * action are highlighted, and by default only the actions the keymaps disagree on are listed.
+ */
+final class KeymapMatrixDialog extends DialogWrapper {
+
+    private static final JBColor DISSENT_BACKGROUND = new JBColor(0xFFE6CC, 0x5C4326);
+
+    private final KeymapMatrix matrix;
+
+    KeymapMatrixDialog(Project project, KeymapMatrix matrix) {
+        super(project, true, IdeModalityType.MODELESS);
+        this.matrix = matrix;
+        setTitle("Keymap Matrix: " + String.join(", ", matrix.keymapNames()));
+        setOKButtonText("Close");
+        init();
+    }
+
+    @Override
+    protected JComponent createCenterPanel() {
+        KeymapMatrixTableModel tableModel = new KeymapMatrixTableModel(matrix);
+        JBTable table = new JBTable(tableModel);
+        TableRowSorter<KeymapMatrixTableModel> sorter = new TableRowSorter<>(tableModel);
+        table.setRowSorter(sorter);
+        table.setDefaultRenderer(String.class, new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+                Component component = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+                int modelColumn = table.convertColumnIndexToModel(column) - KeymapMatrixTableModel.KEYMAP_COLUMNS;
+                if (!isSelected) {
+                    boolean dissents = modelColumn >= 0 && matrix.dissents(table.convertRowIndexToModel(row), modelColumn);
+                    component.setBackground(dissents ? DISSENT_BACKGROUND : table.getBackground());
+                }
+                return component;
+            }
+        });
+
+        JBCheckBox showAllCheckBox = new JBCheckBox("Show actions all keymaps agree on");
+        RowFilter<KeymapMatrixTableModel, Integer> disagreementsOnly = new RowFilter<KeymapMatrixTableModel, Integer>() {
+            @Override
+            public boolean include(Entry<? extends KeymapMatrixTableModel, ? extends Integer> entry) {
+                return entry.getModel().matrix().disagreements().get(entry.getIdentifier());
+            }
+        };
+        sorter.setRowFilter(disagreementsOnly);
+        showAllCheckBox.addActionListener(e -> sorter.setRowFilter(showAllCheckBox.isSelected() ? null : disagreementsOnly));
+
+        BorderLayoutPanel summaryPanel = new BorderLayoutPanel();
+        summaryPanel.setBorder(JBUI.Borders.emptyBottom(4));
+        summaryPanel.addToLeft(new JBLabel(matrix.keymapNames().length + " keymaps, " + matrix.rows() + " bound actions, "
+                + matrix.disagreements().cardinality() + " with differing shortcuts"));
+        summaryPanel.addToRight(showAllCheckBox);
+
+        BorderLayoutPanel panel = new BorderLayoutPanel();
+        panel.setPreferredSize(JBUI.size(1200, 700));
+        panel.addToTop(summaryPanel);
+        panel.addToCenter(ScrollPaneFactory.createScrollPane(table));
+        return panel;
+    }
+
+    @Override
+    protected Action @NotNull [] createActions() {
+        return new Action[]{getOKAction()};
+    }
+}
@@ -0,0 +1,54 @@
+package dev.sandipchitale.dynakeymap;
+
+import javax.swing.table.AbstractTableModel;
+
+/** One row per action of a {@link KeymapMatrix}: the action, its id, then its shortcuts in every keymap. */
+final class KeymapMatrixTableModel extends AbstractTableModel {
+
+    static final int ACTION_COLUMN = 0;
+    static final int ACTION_ID_COLUMN = 1;
+    static final int KEYMAP_COLUMNS = 2;
+
+    private final KeymapMatrix matrix;
+
+    KeymapMatrixTableModel(KeymapMatrix matrix) {
+        this.matrix = matrix;
+    }
+
+    KeymapMatrix matrix() {
+        return matrix;
+    }
+
+    @Override
+    public int getRowCount() {
+        return matrix.rows();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return KEYMAP_COLUMNS + matrix.keymapNames().length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return switch (column) {
+            case ACTION_COLUMN -> "Action";
+            case ACTION_ID_COLUMN -> "ActionId";
+            default -> matrix.keymapNames()[column - KEYMAP_COLUMNS];
+        };
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return switch (column) {
+            case ACTION_COLUMN -> matrix.actionNames()[row];
+            case ACTION_ID_COLUMN -> matrix.actionIds()[row];
+            default -> matrix.shortcuts(row, column - KEYMAP_COLUMNS);
+        };
+    }
+}
@@ -0,0 +1,113 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.ide.actions.searcheverywhere.SearchEverywhereContributor;
+import com.intellij.ide.actions.searcheverywhere.SearchEverywhereContributorFactory;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.keymap.Keymap;
+import com.intellij.openapi.keymap.KeymapManager;
+import com.intellij.openapi.keymap.impl.ui.EditKeymapsDialog;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.ui.ColoredListCellRenderer;
+import com.intellij.ui.SimpleTextAttributes;
+import com.intellij.util.Processor;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.JList;
+import javax.swing.ListCellRenderer;
+
+/**
+ * The "Keymap" tab of Search Everywhere: bindings of the active keymap matching the typed action name or keystroke,
+ * served from the cached {@link KeymapSearchIndex}. Selecting a binding opens the shortcut editor for its action.
+ */
+final class KeymapSearchEverywhereContributor implements SearchEverywhereContributor<KeymapSearchIndex.Binding> {
+
+    private final Project project;
+
+    KeymapSearchEverywhereContributor(Project project) {
+        this.project = project;
+    }
+
+    static final class Factory implements SearchEverywhereContributorFactory<KeymapSearchIndex.Binding> {
+
+        @Override
+        public @NotNull SearchEverywhereContributor<KeymapSearchIndex.Binding> createContributor(@NotNull AnActionEvent initEvent) {
+            // Build the index while the popup opens, so the first query finds it ready.
+            Keymap keymap = KeymapManager.getInstance().getActiveKeymap();
+            ReadAction.nonBlocking(() -> KeymapSnapshots.getInstance().searchIndex(keymap))
+                    .submit(AppExecutorUtil.getAppExecutorService());
+            return new KeymapSearchEverywhereContributor(initEvent.getProject());
+        }
+    }
+
+    @Override
+    public @NotNull String getSearchProviderId() {
+        return KeymapSearchEverywhereContributor.class.getSimpleName();
+    }
+
+    @Override
+    public @NotNull String getGroupName() {
+        return "Keymap";
+    }
+
+    @Override
+    public int getSortWeight() {
+        return 1000;
+    }
+
+    @Override
+    public boolean showInFindResults() {
+        return false;
+    }
+
+    @Override
+    public boolean isShownInSeparateTab() {
+        return true;
+    }
+
+    @Override
+    public void fetchElements(@NotNull String pattern,
+                              @NotNull ProgressIndicator progressIndicator,
+                              @NotNull Processor<? super KeymapSearchIndex.Binding> consumer) {
+        if (pattern.isBlank()) {
+            return;
+        }
+        Keymap keymap = KeymapManager.getInstance().getActiveKeymap();
+        ProgressManager.getInstance().runProcess(() -> {
+            KeymapSearchIndex searchIndex = ReadAction.nonBlocking(() -> KeymapSnapshots.getInstance().searchIndex(keymap))
+                    .executeSynchronously();
+            // The index is immutable; searching needs no read action. The consumer stops it once a page is full.
+            searchIndex.search(pattern, consumer);
+        }, progressIndicator);
+    }
+
+    @Override
+    public boolean processSelectedItem(KeymapSearchIndex.@NotNull Binding selected, int modifiers, @NotNull String searchText) {
+        ApplicationManager.getApplication().invokeLater(() -> {
+            EditKeymapsDialog editKeymapsDialog = new EditKeymapsDialog(project, selected.actionId(), false);
+            editKeymapsDialog.setSize(600, 900);
+            editKeymapsDialog.show();
+        });
+        return true;
+    }
+
+    @Override
+    public @NotNull ListCellRenderer<? super KeymapSearchIndex.Binding> getElementsRenderer() {
+        return new ColoredListCellRenderer<>() {
+            @Override
+            protected void customizeCellRenderer(@NotNull JList<? extends KeymapSearchIndex.Binding> list,
+                                                 KeymapSearchIndex.Binding binding,
+                                                 int index,
+                                                 boolean selected,
+                                                 boolean hasFocus) {
+                append(binding.actionName());
+                append("  " + binding.shortcut(), SimpleTextAttributes.GRAYED_ATTRIBUTES);
+                append("  " + binding.actionId(), SimpleTextAttributes.GRAYED_SMALL_ATTRIBUTES);
+            }
+        };
+    }
+}
@@ -0,0 +1,248 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.actionSystem.KeyboardShortcut;
+import com.intellij.openapi.actionSystem.Shortcut;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.psi.codeStyle.MinusculeMatcher;
+import com.intellij.psi.codeStyle.NameUtil;
+import com.intellij.util.Processor;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import javax.swing.KeyStroke;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Keyboard bindings of a snapshot, indexed for the Keymap tab of Search Everywhere. Built once per snapshot and cached
+ * by {@link KeymapSnapshots#searchIndex}.
+ */
+final class KeymapSearchIndex {
+
+    record Binding(String actionId, String actionName, String shortcut) {
+    }
+
+    private static final int SHORTCUT_MATCH = 20_000;
+    private static final int EXACT_SHORTCUT_MATCH = 40_000;
+    private static final int CHAR_BUCKETS = 64;
+
+    private final KeymapSnapshot snapshot;
+    // Bindings ordered by action index; the bindings of action a are [actionBindings[a], actionBindings[a + 1]).
+    private final int[] bindingActions;
+    private final String[] bindingShortcuts;
+    // Packed first and second keystroke of each binding.
+    private final int[] bindingFirstKeyStrokes;
+    private final int[] bindingSecondKeyStrokes;
+    private final int[] actionBindings;
+    private final TextIndex shortcutIndex;
+    // Per lower-cased letter or digit (folded into CHAR_BUCKETS), the actions with keyboard bindings whose name
+    // contains it. A fuzzy match needs every letter and digit of the query in the name, so intersecting the buckets of
+    // the query's characters narrows the fuzzy pass down to a superset of its matches.
+    private final BitSet[] actionsByChar;
+
+    private KeymapSearchIndex(KeymapSnapshot snapshot, int[] bindingActions, String[] bindingShortcuts,
+                              int[] bindingFirstKeyStrokes, int[] bindingSecondKeyStrokes, int[] actionBindings,
+                              BitSet[] actionsByChar) {
+        this.snapshot = snapshot;
+        this.bindingActions = bindingActions;
+        this.bindingShortcuts = bindingShortcuts;
+        this.bindingFirstKeyStrokes = bindingFirstKeyStrokes;
+        this.bindingSecondKeyStrokes = bindingSecondKeyStrokes;
+        this.actionBindings = actionBindings;
+        this.shortcutIndex = TextIndex.of(bindingShortcuts);
+        this.actionsByChar = actionsByChar;
+    }
+
+    static KeymapSearchIndex build(KeymapSnapshot snapshot) {
+        KeymapSnapshot.ActionTable actionTable = snapshot.actionTable();
+        IntArrayList bindingActions = new IntArrayList();
+        List<String> bindingShortcuts = new ArrayList<>();
+        IntArrayList bindingFirstKeyStrokes = new IntArrayList();
+        IntArrayList bindingSecondKeyStrokes = new IntArrayList();
+        int[] actionBindings = new int[actionTable.size() + 1];
+        BitSet[] actionsByChar = new BitSet[CHAR_BUCKETS];
+        Arrays.setAll(actionsByChar, bucket -> new BitSet(actionTable.size()));
+        for (int action = 0; action < actionTable.size(); action++) {
+            ProgressManager.checkCanceled();
+            actionBindings[action] = bindingActions.size();
+            for (Shortcut shortcut : snapshot.shortcuts().get(actionTable.id(action))) {
+                if (shortcut instanceof KeyboardShortcut keyboardShortcut) {
+                    bindingActions.add(action);
+                    bindingShortcuts.add(shortcutText(keyboardShortcut));
+                    bindingFirstKeyStrokes.add(KeyStrokeCodes.pack(keyboardShortcut.getFirstKeyStroke()));
+                    bindingSecondKeyStrokes.add(KeyStrokeCodes.pack(keyboardShortcut.getSecondKeyStroke()));
+                }
+            }
+            if (bindingActions.size() > actionBindings[action]) {
+                String name = actionTable.name(action);
+                for (int i = 0; i < name.length(); i++) {
+                    if (Character.isLetterOrDigit(name.charAt(i))) {
+                        actionsByChar[bucket(name.charAt(i))].set(action);
+                    }
+                }
+            }
+        }
+        actionBindings[actionTable.size()] = bindingActions.size();
+        return new KeymapSearchIndex(snapshot, bindingActions.toIntArray(), bindingShortcuts.toArray(String[]::new),
+                bindingFirstKeyStrokes.toIntArray(), bindingSecondKeyStrokes.toIntArray(), actionBindings, actionsByChar);
+    }
+
+    private static int bucket(char c) {
+        return Character.toLowerCase(c) % CHAR_BUCKETS;
+    }
+
+    private static String shortcutText(KeyboardShortcut keyboardShortcut) {
+        return KeyStrokeFormat.format(keyboardShortcut.getFirstKeyStroke(), keyboardShortcut.getSecondKeyStroke(),
+                KeyStrokeFormat.Style.BRACKETED);
+    }
+
+    /**
+     * Parses a query such as {@code ctrl shift F}, {@code Shift+Ctrl+f} or {@code [ ctrl K ] [ ctrl C ]}, with the
+     * modifiers in any order, into its packed first and second keystrokes (the second {@link KeyStrokeCodes#NONE} if
+     * absent); {@code null} if the query is not a shortcut.
+     */
+    static int[] keyStrokes(String query) {
+        int[] keyStrokes = {KeyStrokeCodes.NONE, KeyStrokeCodes.NONE};
+        int count = 0;
+        int modifiers = 0;
+        for (String token : query.split("[\\s+\\[\\]]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            int modifier = KeyStrokeQuery.modifierMask(token.toLowerCase(Locale.ROOT));
+            if (modifier != 0) {
+                modifiers |= modifier;
+                continue;
+            }
+            int key = KeyMapLayout.ALL_KEYS.indexOf(token.toUpperCase(Locale.ROOT));
+            if (key < 0 || count == keyStrokes.length) {
+                return null;
+            }
+            keyStrokes[count++] = KeyStrokeCodes.pack(KeyStroke.getKeyStroke(KeyMapLayout.KEY_CODES[key], modifiers));
+            modifiers = 0;
+        }
+        return count == 0 || modifiers != 0 ? null : keyStrokes;
+    }
+
+    KeymapSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Feeds the bindings matching the query to the consumer until it returns {@code false}. Bindings whose shortcut
+     * is the query (compared as packed keystrokes, so modifier order and separators do not matter) or starts with it,
+     * or whose shortcut, name or id contains the query, come first, ranked; they are found through the snapshot's
+     * keystroke index and the text indexes. Fuzzy (camel hump) name matches follow, ranked among themselves; only the
+     * actions whose names hold every letter and digit of the query are tried.
+     */
+    void search(String query, Processor<? super Binding> consumer) {
+        String text = query.trim();
+        if (text.isEmpty()) {
+            return;
+        }
+        KeymapSnapshot.ActionTable actionTable = snapshot.actionTable();
+        MinusculeMatcher matcher = NameUtil.buildMatcher("*" + text, NameUtil.MatchingCaseSensitivity.NONE);
+
+        // Shortcut text is indexed as "[ shift ctrl F ]", so "shift+ctrl+f" is looked up as "shift ctrl f".
+        String shortcutQuery = text.toLowerCase(Locale.ROOT).replace('+', ' ').replaceAll("\\s+", " ");
+        BitSet shortcutHits = shortcutIndex.search(shortcutQuery);
+        BitSet actionHits = actionTable.nameIndex().search(text);
+        actionHits.or(actionTable.idIndex().search(text));
+
+        int[] scores = new int[bindingActions.length];
+        IntArrayList hits = new IntArrayList();
+        int[] keyStrokes = keyStrokes(text);
+        int[] keyStrokeActions = keyStrokes == null ? null : snapshot.keyStrokeIndex().get(KeyStrokeCodes.unpack(keyStrokes[0]));
+        if (keyStrokeActions != null) {
+            for (int action : keyStrokeActions) {
+                for (int binding = actionBindings[action]; binding < actionBindings[action + 1]; binding++) {
+                    // An action is listed once per binding on the keystroke, so its bindings may be seen again.
+                    if (scores[binding] != 0 || bindingFirstKeyStrokes[binding] != keyStrokes[0]) {
+                        continue;
+                    }
+                    if (bindingSecondKeyStrokes[binding] == keyStrokes[1]) {
+                        scores[binding] = EXACT_SHORTCUT_MATCH;
+                        hits.add(binding);
+                    } else if (keyStrokes[1] == KeyStrokeCodes.NONE) {
+                        // The query is the first keystroke of a chord.
+                        scores[binding] = SHORTCUT_MATCH;
+                        hits.add(binding);
+                    }
+                }
+            }
+        }
+        for (int binding = shortcutHits.nextSetBit(0); binding >= 0; binding = shortcutHits.nextSetBit(binding + 1)) {
+            if (scores[binding] == 0) {
+                scores[binding] = SHORTCUT_MATCH;
+                hits.add(binding);
+            }
+        }
+        for (int action = actionHits.nextSetBit(0); action >= 0; action = actionHits.nextSetBit(action + 1)) {
+            for (int binding = actionBindings[action]; binding < actionBindings[action + 1]; binding++) {
+                if (scores[binding] == 0) {
+                    hits.add(binding);
+                }
+                scores[binding] = Math.max(scores[binding], 1 + Math.max(0, matcher.matchingDegree(actionTable.name(action))));
+            }
+        }
+        if (!emit(hits, scores, consumer)) {
+            return;
+        }
+
+        BitSet candidates = fuzzyCandidates(text);
+        candidates.andNot(actionHits);
+        IntArrayList fuzzyHits = new IntArrayList();
+        for (int action = candidates.nextSetBit(0); action >= 0; action = candidates.nextSetBit(action + 1)) {
+            ProgressManager.checkCanceled();
+            String name = actionTable.name(action);
+            if (matcher.matches(name)) {
+                int degree = 1 + Math.max(0, matcher.matchingDegree(name));
+                for (int binding = actionBindings[action]; binding < actionBindings[action + 1]; binding++) {
+                    if (scores[binding] == 0) {
+                        scores[binding] = degree;
+                        fuzzyHits.add(binding);
+                    }
+                }
+            }
+        }
+        emit(fuzzyHits, scores, consumer);
+    }
+
+    /** The actions with keyboard bindings whose names may fuzzily match the query. */
+    private BitSet fuzzyCandidates(String query) {
+        BitSet candidates = null;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                continue;
+            }
+            if (candidates == null) {
+                candidates = (BitSet) actionsByChar[bucket(c)].clone();
+            } else {
+                candidates.and(actionsByChar[bucket(c)]);
+            }
+        }
+        return candidates == null ? new BitSet() : candidates;
+    }
+
+    private boolean emit(IntArrayList hits, int[] scores, Processor<? super Binding> consumer) {
+        KeymapSnapshot.ActionTable actionTable = snapshot.actionTable();
+        // Best score first; equal scores keep the action table's name order.
+        int[] ranked = Arrays.stream(hits.toIntArray())
+                .boxed()
+                .sorted(Comparator.comparingInt((Integer binding) -> -scores[binding]).thenComparingInt(binding -> binding))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        for (int binding : ranked) {
+            ProgressManager.checkCanceled();
+            int action = bindingActions[binding];
+            if (!consumer.process(new Binding(actionTable.id(action), actionTable.name(action), bindingShortcuts[binding]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,302 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.KeyboardShortcut;
+import com.intellij.openapi.actionSystem.Shortcut;
+import com.intellij.openapi.keymap.Keymap;
+import com.intellij.openapi.keymap.ex.KeymapManagerEx;
+import com.intellij.openapi.keymap.impl.KeymapImpl;
+import com.intellij.openapi.progress.ProgressManager;
+
+import javax.swing.KeyStroke;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Immutable view of a keymap, collected once and shared by the tool window, the exporters and the comparator.
+ *
+ * @param keymapName     name of the keymap the snapshot was collected from
+ * @param shortcuts      shortcuts of every action in the keymap, by action id, in keymap order
+ * @param actionTable    every action in the keymap; the indexes below refer to it
+ * @param actions        the same actions split into bound and unbound, keyed by display name (sorted)
+ * @param keyStrokeIndex first keystroke to the indexes of the actions bound to it, ordered by action id
+ * @param chordIndex     second keystroke to the chords ending on it
+ * @param overrides      ids of the actions whose shortcuts the keymap sets itself instead of inheriting them from the
+ *                       keymap it is based on; empty for a keymap without a parent
+ */
+record KeymapSnapshot(String keymapName,
+                      Map<String, Shortcut[]> shortcuts,
+                      ActionTable actionTable,
+                      KeymapActions actions,
+                      Map<KeyStroke, int[]> keyStrokeIndex,
+                      Map<KeyStroke, List<Chord>> chordIndex,
+                      Set<String> overrides) {
+
+    record Chord(KeyStroke firstKeyStroke, int action) {
+    }
+
+    /**
+     * Action ids and display names sorted by display name (then id), addressed by index from the table models. The
+     * text indexes answer substring searches over the names and ids for the table filters.
+     */
+    record ActionTable(String[] ids, String[] names, Map<String, Integer> indexes, TextIndex nameIndex, TextIndex idIndex) {
+
+        int size() {
+            return ids.length;
+        }
+
+        String id(int action) {
+            return ids[action];
+        }
+
+        String name(int action) {
+            return names[action];
+        }
+
+        /** Returns the index of the action, or {@code -1} if it is not in the table. */
+        int indexOf(String actionId) {
+            return indexes.getOrDefault(actionId, -1);
+        }
+
+        static ActionTable of(Map<String, String> namesById) {
+            String[] ids = namesById.keySet().toArray(String[]::new);
+            Arrays.sort(ids, Comparator.comparing((String id) -> namesById.get(id)).thenComparing(Comparator.naturalOrder()));
+            String[] names = new String[ids.length];
+            Map<String, Integer> indexes = new HashMap<>(ids.length * 2);
+            for (int i = 0; i < ids.length; i++) {
+                names[i] = namesById.get(ids[i]);
+                indexes.put(ids[i], i);
+            }
+            return new ActionTable(ids, names, Collections.unmodifiableMap(indexes), TextIndex.of(names), TextIndex.of(ids));
+        }
+    }
+
+    String actionName(String actionId) {
+        int action = actionTable.indexOf(actionId);
+        return action < 0 ? actionId : actionTable.name(action);
+    }
+
+    /**
+     * Returns a copy of this snapshot with the shortcuts of the given actions re-read from the keymap, touching only
+     * the index entries of their old and new keystrokes. Returns {@code null} when an action was added to or removed
+     * from the keymap, since the action table then changes and a full {@link #collect} is needed.
+     */
+    KeymapSnapshot patch(Keymap keymap, Collection<String> actionIds) {
+        Collection<String> keymapActionIds = keymap.getActionIdList();
+        for (String actionId : actionIds) {
+            if (actionTable.indexOf(actionId) < 0 || !keymapActionIds.contains(actionId)) {
+                return null;
+            }
+        }
+        Set<String> keymapOverrides = overrides(keymap);
+        return patched(keymapName, keymap, actionIds, keymapOverrides == null ? overrides : keymapOverrides);
+    }
+
+    /** Re-reads the given actions, all in the action table, from the keymap into a copy named {@code keymapName}. */
+    private KeymapSnapshot patched(String keymapName, Keymap keymap, Collection<String> actionIds, Set<String> overrides) {
+        Map<String, Shortcut[]> patchedShortcuts = new LinkedHashMap<>(shortcuts);
+        SortedMap<String, KeymapActions.ActionIdAndShortCuts> bound = new TreeMap<>(actions.bound());
+        SortedMap<String, String> unbound = new TreeMap<>(actions.unbound());
+        Map<KeyStroke, int[]> patchedKeyStrokeIndex = new HashMap<>(keyStrokeIndex);
+        Map<KeyStroke, List<Chord>> patchedChordIndex = new HashMap<>(chordIndex);
+
+        for (String actionId : actionIds) {
+            int action = actionTable.indexOf(actionId);
+            String name = actionTable.name(action);
+
+            for (Shortcut shortcut : patchedShortcuts.get(actionId)) {
+                if (shortcut instanceof KeyboardShortcut keyboardShortcut) {
+                    patchedKeyStrokeIndex.computeIfPresent(keyboardShortcut.getFirstKeyStroke(), (k, boundActions) -> without(boundActions, action));
+                    if (keyboardShortcut.getSecondKeyStroke() != null) {
+                        patchedChordIndex.computeIfPresent(keyboardShortcut.getSecondKeyStroke(), (k, chords) -> {
+                            List<Chord> rest = chords.stream().filter(chord -> chord.action() != action).toList();
+                            return rest.isEmpty() ? null : rest;
+                        });
+                    }
+                }
+            }
+
+            Shortcut[] actionShortcuts = keymap.getShortcuts(actionId);
+            patchedShortcuts.put(actionId, actionShortcuts);
+            for (Shortcut shortcut : actionShortcuts) {
+                if (shortcut instanceof KeyboardShortcut keyboardShortcut) {
+                    KeyStroke firstKeyStroke = keyboardShortcut.getFirstKeyStroke();
+                    patchedKeyStrokeIndex.merge(firstKeyStroke, new int[]{action}, (boundActions, added) -> with(boundActions, action));
+                    KeyStroke secondKeyStroke = keyboardShortcut.getSecondKeyStroke();
+                    if (secondKeyStroke != null) {
+                        patchedChordIndex.merge(secondKeyStroke, List.of(new Chord(firstKeyStroke, action)),
+                                (chords, added) -> Stream.concat(chords.stream(), added.stream()).toList());
+                    }
+                }
+            }
+
+            KeymapActions.ActionIdAndShortCuts boundEntry = bound.get(name);
+            if (boundEntry != null && boundEntry.actionId().equals(actionId)) {
+                bound.remove(name);
+            }
+            unbound.remove(name, actionId);
+            if (actionShortcuts.length > 0) {
+                bound.put(name, new KeymapActions.ActionIdAndShortCuts(actionId, actionShortcuts));
+            } else {
+                unbound.put(name, actionId);
+            }
+        }
+
+        return new KeymapSnapshot(keymapName,
+                Collections.unmodifiableMap(patchedShortcuts),
+                actionTable,
+                new KeymapActions(Collections.unmodifiableSortedMap(bound), Collections.unmodifiableSortedMap(unbound)),
+                Map.copyOf(patchedKeyStrokeIndex),
+                Map.copyOf(patchedChordIndex),
+                overrides);
+    }
+
+    private static int[] without(int[] boundActions, int action) {
+        int[] rest = Arrays.stream(boundActions).filter(a -> a != action).toArray();
+        return rest.length == 0 ? null : rest;
+    }
+
+    private int[] with(int[] boundActions, int action) {
+        return IntStream.concat(Arrays.stream(boundActions), IntStream.of(action))
+                .boxed()
+                .sorted(Comparator.comparing(actionTable::id))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Returns the snapshot of a keymap based on another, layered on the snapshot of that parent: only the
+     * {@link #overrides} are read from the keymap, everything inherited is taken over from the parent. When those actions are
+     * all in the parent's action table, the table and its text indexes are shared rather than rebuilt. Returns
+     * {@code null} when the keymap cannot tell its own actions apart, in which case a full {@link #collect} is needed.
+     */
+    static KeymapSnapshot derive(KeymapSnapshot parent, Keymap keymap, ActionManager actionManager) {
+        Set<String> overrides = overrides(keymap);
+        if (overrides == null) {
+            return null;
+        }
+        if (overrides.stream().allMatch(actionId -> parent.actionTable().indexOf(actionId) >= 0)) {
+            return parent.patched(keymap.getName(), keymap, overrides, overrides);
+        }
+
+        Map<String, Shortcut[]> shortcuts = new LinkedHashMap<>(parent.shortcuts());
+        Map<String, String> actionNames = new HashMap<>(parent.actionTable().size() * 2);
+        for (int action = 0; action < parent.actionTable().size(); action++) {
+            actionNames.put(parent.actionTable().id(action), parent.actionTable().name(action));
+        }
+        for (String actionId : overrides) {
+            ProgressManager.checkCanceled();
+            shortcuts.put(actionId, keymap.getShortcuts(actionId));
+            actionNames.computeIfAbsent(actionId, id -> Shortcuts.actionDisplayName(actionManager, id));
+        }
+        return build(keymap.getName(), shortcuts, actionNames, overrides);
+    }
+
+    /**
+     * Ids of the actions whose shortcuts the keymap does not simply inherit: those it sets itself, and the bound
+     * actions (see {@link KeymapManagerEx#getActionBinding}) whose target is one of them. Empty for a keymap without a
+     * parent, {@code null} if the keymap implementation does not expose its own actions.
+     */
+    static Set<String> overrides(Keymap keymap) {
+        if (keymap.getParent() == null) {
+            return Set.of();
+        }
+        // KeymapImpl.getOwnActionIds is internal API, and the only way to tell a keymap's own shortcuts from inherited
+        // ones; other implementations, or a platform without it, get a full collect instead.
+        if (!(keymap instanceof KeymapImpl keymapImpl)) {
+            return null;
+        }
+        Set<String> overrides = new HashSet<>(Arrays.asList(keymapImpl.getOwnActionIds()));
+        // A bound action without shortcuts of its own has its target's shortcuts in the keymap asked, not in the
+        // parent, so it changes along with its target. Bindings may chain.
+        KeymapManagerEx keymapManager = KeymapManagerEx.getInstanceEx();
+        Set<String> boundActions = keymapManager.getBoundActions();
+        boolean added;
+        do {
+            added = false;
+            for (String boundAction : boundActions) {
+                String target = keymapManager.getActionBinding(boundAction);
+                if (target != null && overrides.contains(target) && overrides.add(boundAction)) {
+                    added = true;
+                }
+            }
+        } while (added);
+        return Set.copyOf(overrides);
+    }
+
+    static KeymapSnapshot collect(Keymap keymap, ActionManager actionManager) {
+        return collect(KeymapSource.of(keymap, actionManager));
+    }
+
+    static KeymapSnapshot collect(KeymapSource source) {
+        Collection<String> actionIds = source.actionIds();
+        Map<String, Shortcut[]> shortcuts = new LinkedHashMap<>(actionIds.size() * 2);
+        Map<String, String> actionNames = new HashMap<>(actionIds.size() * 2);
+        for (String actionId : actionIds) {
+            shortcuts.put(actionId, source.shortcuts(actionId));
+            actionNames.put(actionId, source.actionName(actionId));
+        }
+        Set<String> overrides = source.overrides();
+        return build(source.name(), shortcuts, actionNames, overrides == null ? Set.of() : overrides);
+    }
+
+    /** Builds the snapshot of already read shortcuts and action names; also used for stored snapshots. */
+    static KeymapSnapshot build(String keymapName, Map<String, Shortcut[]> shortcuts, Map<String, String> actionNames, Set<String> overrides) {
+        SortedMap<String, KeymapActions.ActionIdAndShortCuts> bound = new TreeMap<>();
+        SortedMap<String, String> unbound = new TreeMap<>();
+        for (Map.Entry<String, Shortcut[]> entry : shortcuts.entrySet()) {
+            String name = actionNames.get(entry.getKey());
+            if (entry.getValue().length > 0) {
+                bound.put(name, new KeymapActions.ActionIdAndShortCuts(entry.getKey(), entry.getValue()));
+            } else {
+                unbound.put(name, entry.getKey());
+            }
+        }
+
+        ActionTable actionTable = ActionTable.of(actionNames);
+        Map<KeyStroke, List<Integer>> keyStrokeToActions = new HashMap<>();
+        Map<KeyStroke, List<Chord>> chordIndex = new HashMap<>();
+        for (Map.Entry<String, Shortcut[]> entry : shortcuts.entrySet()) {
+            int action = actionTable.indexOf(entry.getKey());
+            for (Shortcut shortcut : entry.getValue()) {
+                if (shortcut instanceof KeyboardShortcut keyboardShortcut) {
+                    KeyStroke firstKeyStroke = keyboardShortcut.getFirstKeyStroke();
+                    keyStrokeToActions.computeIfAbsent(firstKeyStroke, k -> new ArrayList<>()).add(action);
+                    KeyStroke secondKeyStroke = keyboardShortcut.getSecondKeyStroke();
+                    if (secondKeyStroke != null) {
+                        chordIndex.computeIfAbsent(secondKeyStroke, k -> new ArrayList<>())
+                                .add(new Chord(firstKeyStroke, action));
+                    }
+                }
+            }
+        }
+
+        Map<KeyStroke, int[]> keyStrokeIndex = new HashMap<>(keyStrokeToActions.size() * 2);
+        keyStrokeToActions.forEach((keyStroke, actions) -> keyStrokeIndex.put(keyStroke, actions.stream()
+                .sorted(Comparator.comparing(actionTable::id))
+                .mapToInt(Integer::intValue)
+                .toArray()));
+        chordIndex.replaceAll((keyStroke, chords) -> List.copyOf(chords));
+
+        return new KeymapSnapshot(keymapName,
+                Collections.unmodifiableMap(shortcuts),
+                actionTable,
+                new KeymapActions(Collections.unmodifiableSortedMap(bound), Collections.unmodifiableSortedMap(unbound)),
+                Map.copyOf(keyStrokeIndex),
+                Map.copyOf(chordIndex),
+                overrides);
+    }
+}
@@ -0,0 +1,219 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.ide.plugins.IdeaPluginDescriptor;
+import com.intellij.ide.plugins.PluginManagerCore;
+import com.intellij.openapi.actionSystem.KeyboardShortcut;
+import com.intellij.openapi.actionSystem.MouseShortcut;
+import com.intellij.openapi.actionSystem.Shortcut;
+import com.intellij.openapi.application.ApplicationInfo;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.keymap.Keymap;
+import com.intellij.openapi.keymap.impl.KeymapImpl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact binary copies of {@link KeymapSnapshot}s in the IDE system directory, one file per keymap, so the tool
+ * window can paint the tables on startup before the live keymap is collected. A copy is only read back for the same
+ * {@link #fingerprint}: the keymap (and the keymaps it is based on), the IDE build and the loaded plugins, which
+ * contribute actions and their names.
+ * <p>
+ * Layout: magic, format version, fingerprint, keymap name, the action table (id and name per action, in table order),
+ * the shortcuts (action index and shortcuts per action, in keymap order), then the indexes of the overridden actions.
+ */
+final class KeymapSnapshotStore {
+
+    private static final int MAGIC = 0x444B4D53; // "DKMS"
+    private static final int FORMAT_VERSION = 2;
+
+    private static final byte KEYBOARD_SHORTCUT = 0;
+    private static final byte MOUSE_SHORTCUT = 1;
+
+    /**
+     * Hashes everything a snapshot of the keymap is collected from, short of the action names. Reads only the actions
+     * each keymap in the chain sets itself. Call under a read action.
+     */
+    static long fingerprint(Keymap keymap) {
+        long hash = FORMAT_VERSION;
+        hash = mix(hash, ApplicationInfo.getInstance().getBuild().asString());
+        IdeaPluginDescriptor[] plugins = PluginManagerCore.getLoadedPlugins().toArray(IdeaPluginDescriptor[]::new);
+        Arrays.sort(plugins, Comparator.comparing(plugin -> plugin.getPluginId().getIdString()));
+        for (IdeaPluginDescriptor plugin : plugins) {
+            hash = mix(hash, plugin.getPluginId().getIdString());
+            hash = mix(hash, plugin.getVersion());
+        }
+        for (Keymap layer = keymap; layer != null; layer = layer.getParent()) {
+            hash = mix(hash, layer.getName());
+            String[] actionIds = layer instanceof KeymapImpl keymapImpl
+                    ? keymapImpl.getOwnActionIds()
+                    : layer.getActionIdList().toArray(String[]::new);
+            Arrays.sort(actionIds);
+            for (String actionId : actionIds) {
+                hash = mix(hash, actionId);
+                for (Shortcut shortcut : layer.getShortcuts(actionId)) {
+                    hash = mix(hash, shortcut.toString());
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        return 31 * hash + (value == null ? 0 : value.hashCode());
+    }
+
+    /** Returns the stored snapshot of the keymap if it was written for the same fingerprint, {@code null} otherwise. */
+    static KeymapSnapshot read(String keymapName, long fingerprint) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path(keymapName)), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readLong() != fingerprint
+                    || !in.readUTF().equals(keymapName)) {
+                return null;
+            }
+
+            int actionCount = in.readInt();
+            String[] ids = new String[actionCount];
+            Map<String, String> actionNames = new HashMap<>(actionCount * 2);
+            for (int action = 0; action < actionCount; action++) {
+                ids[action] = in.readUTF();
+                actionNames.put(ids[action], in.readUTF());
+            }
+
+            int entryCount = in.readInt();
+            Map<String, Shortcut[]> shortcuts = new LinkedHashMap<>(entryCount * 2);
+            for (int entry = 0; entry < entryCount; entry++) {
+                String actionId = ids[in.readInt()];
+                Shortcut[] actionShortcuts = new Shortcut[in.readInt()];
+                for (int i = 0; i < actionShortcuts.length; i++) {
+                    actionShortcuts[i] = readShortcut(in);
+                }
+                shortcuts.put(actionId, actionShortcuts);
+            }
+
+            int overrideCount = in.readInt();
+            Set<String> overrides = new HashSet<>(overrideCount * 2);
+            for (int i = 0; i < overrideCount; i++) {
+                overrides.add(ids[in.readInt()]);
+            }
+
+            return KeymapSnapshot.build(keymapName, shortcuts, actionNames, Set.copyOf(overrides));
+        } catch (IOException | RuntimeException e) {
+            // A missing or broken copy only costs the live collect, after which it is written.
+            return null;
+        }
+    }
+
+    private static Shortcut readShortcut(DataInputStream in) throws IOException {
+        return switch (in.readByte()) {
+            case KEYBOARD_SHORTCUT -> new KeyboardShortcut(KeyStrokeCodes.unpack(in.readInt()), KeyStrokeCodes.unpack(in.readInt()));
+            case MOUSE_SHORTCUT -> new MouseShortcut(in.readInt(), in.readInt(), in.readInt());
+            default -> throw new IOException("Unknown shortcut kind");
+        };
+    }
+
+    /**
+     * Writes the snapshot for the given fingerprint, replacing the previous copy atomically. Snapshots with shortcut
+     * kinds the format does not know are not stored. Does IO; call off the EDT and outside read actions. Concurrent
+     * writes of a keymap (from the tool windows of several projects) each go through a temporary file of their own.
+     */
+    static void write(KeymapSnapshot snapshot, long fingerprint) {
+        Path path = path(snapshot.keymapName());
+        Path temporary = null;
+        KeymapSnapshot.ActionTable actionTable = snapshot.actionTable();
+        try {
+            Files.createDirectories(path.getParent());
+            temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(fingerprint);
+                out.writeUTF(snapshot.keymapName());
+
+                out.writeInt(actionTable.size());
+                for (int action = 0; action < actionTable.size(); action++) {
+                    out.writeUTF(actionTable.id(action));
+                    out.writeUTF(actionTable.name(action));
+                }
+
+                out.writeInt(snapshot.shortcuts().size());
+                for (Map.Entry<String, Shortcut[]> entry : snapshot.shortcuts().entrySet()) {
+                    out.writeInt(actionTable.indexOf(entry.getKey()));
+                    out.writeInt(entry.getValue().length);
+                    for (Shortcut shortcut : entry.getValue()) {
+                        writeShortcut(out, shortcut);
+                    }
+                }
+
+                out.writeInt(snapshot.overrides().size());
+                for (String actionId : snapshot.overrides()) {
+                    out.writeInt(actionTable.indexOf(actionId));
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                if (temporary != null) {
+                    Files.deleteIfExists(temporary);
+                }
+            } catch (IOException ignored) {
+                // Left for the next write to replace.
+            }
+        }
+    }
+
+    private static void writeShortcut(DataOutputStream out, Shortcut shortcut) throws IOException {
+        // Exact classes only: subclasses (such as pressure shortcuts) would not read back as themselves.
+        if (shortcut.getClass() == KeyboardShortcut.class) {
+            KeyboardShortcut keyboardShortcut = (KeyboardShortcut) shortcut;
+            out.writeByte(KEYBOARD_SHORTCUT);
+            out.writeInt(KeyStrokeCodes.pack(keyboardShortcut.getFirstKeyStroke()));
+            out.writeInt(KeyStrokeCodes.pack(keyboardShortcut.getSecondKeyStroke()));
+        } else if (shortcut.getClass() == MouseShortcut.class) {
+            MouseShortcut mouseShortcut = (MouseShortcut) shortcut;
+            out.writeByte(MOUSE_SHORTCUT);
+            out.writeInt(mouseShortcut.getButton());
+            out.writeInt(mouseShortcut.getModifiers());
+            out.writeInt(mouseShortcut.getClickCount());
+        } else {
+            throw new IOException("Unsupported shortcut " + shortcut);
+        }
+    }
+
+    /** Whether two snapshots hold the same actions, names, shortcuts and overrides. */
+    static boolean sameContent(KeymapSnapshot left, KeymapSnapshot right) {
+        if (!left.keymapName().equals(right.keymapName())
+                || !Arrays.equals(left.actionTable().ids(), right.actionTable().ids())
+                || !Arrays.equals(left.actionTable().names(), right.actionTable().names())
+                || !left.overrides().equals(right.overrides())
+                || !left.shortcuts().keySet().equals(right.shortcuts().keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, Shortcut[]> entry : left.shortcuts().entrySet()) {
+            if (!Arrays.equals(entry.getValue(), right.shortcuts().get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Path path(String keymapName) {
+        return Path.of(PathManager.getSystemPath(), "dynakeymap", "snapshots",
+                keymapName.replaceAll("[^\\w .-]+", "_") + ".bin");
+    }
+
+    private KeymapSnapshotStore() {
+    }
+}
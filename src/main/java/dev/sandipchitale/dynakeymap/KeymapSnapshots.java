@@ -0,0 +1,169 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.ide.plugins.DynamicPluginListener;
+import com.intellij.ide.plugins.IdeaPluginDescriptor;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.keymap.Keymap;
+import com.intellij.openapi.keymap.KeymapManagerListener;
+import com.intellij.openapi.keymap.ex.KeymapManagerEx;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application-wide cache of {@link KeymapSnapshot}s by keymap name, so every consumer reading the same keymap version
+ * shares one snapshot. When shortcuts of a keymap (or of a keymap it is based on) change, the changed action ids are
+ * remembered and the cached snapshot is patched on its next use; other changes drop the snapshot. A keymap based on
+ * another is {@link KeymapSnapshot#derive derived} from the cached snapshot of its parent.
+ */
+@Service
+public final class KeymapSnapshots implements Disposable {
+
+    private final Map<String, KeymapSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    // Action ids whose shortcuts changed since the cached snapshot of a keymap was taken.
+    private final Map<String, Set<String>> staleActionIds = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation so a snapshot collected concurrently with a change is not cached.
+    private final AtomicLong modificationCount = new AtomicLong();
+
+    // Search Everywhere index of the last snapshot searched; rebuilt when that keymap's snapshot changes.
+    private volatile KeymapSearchIndex searchIndex;
+
+    public KeymapSnapshots() {
+        MessageBusConnection connection = ApplicationManager.getApplication().getMessageBus().connect(this);
+        connection.subscribe(KeymapManagerListener.TOPIC, new KeymapManagerListener() {
+            @Override
+            public void keymapAdded(@NotNull Keymap keymap) {
+                invalidate(keymap);
+            }
+
+            @Override
+            public void keymapRemoved(@NotNull Keymap keymap) {
+                invalidate(keymap);
+            }
+
+            @Override
+            public void shortcutsChanged(@NotNull Keymap keymap, @NotNull Collection<String> actionIds, boolean fromSettings) {
+                invalidate(keymap, actionIds);
+            }
+        });
+        // Action display names come from the loaded plugins.
+        connection.subscribe(DynamicPluginListener.TOPIC, new DynamicPluginListener() {
+            @Override
+            public void pluginLoaded(@NotNull IdeaPluginDescriptor pluginDescriptor) {
+                invalidateAll();
+            }
+
+            @Override
+            public void pluginUnloaded(@NotNull IdeaPluginDescriptor pluginDescriptor, boolean isUpdate) {
+                invalidateAll();
+            }
+        });
+    }
+
+    static KeymapSnapshots getInstance() {
+        return ApplicationManager.getApplication().getService(KeymapSnapshots.class);
+    }
+
+    /**
+     * Returns the cached snapshot of the keymap, collecting, deriving or patching it first if needed. Call under a read
+     * action.
+     */
+    KeymapSnapshot get(Keymap keymap) {
+        String keymapName = keymap.getName();
+        long stamp = modificationCount.get();
+        KeymapSnapshot cached = snapshots.get(keymapName);
+        Set<String> stale = Set.copyOf(staleActionIds.getOrDefault(keymapName, Set.of()));
+        if (cached != null && stale.isEmpty()) {
+            return cached;
+        }
+
+        KeymapSnapshot snapshot;
+        // For a derived keymap this includes getting its parent's snapshot, which is also recorded by itself.
+        try (Timings.Span span = Timings.start(Timings.Phase.SNAPSHOT, keymapName)) {
+            snapshot = cached == null ? null : cached.patch(keymap, stale);
+            Keymap parent = keymap.getParent();
+            if (snapshot == null && parent != null) {
+                snapshot = KeymapSnapshot.derive(get(parent), keymap, ActionManager.getInstance());
+            }
+            if (snapshot == null) {
+                snapshot = KeymapSnapshot.collect(keymap, ActionManager.getInstance());
+            }
+        }
+        synchronized (this) {
+            // Only cache what reflects every change notified so far.
+            if (stamp == modificationCount.get()) {
+                snapshots.put(keymapName, snapshot);
+                staleActionIds.remove(keymapName);
+            }
+        }
+        return snapshot;
+    }
+
+    /** Returns the search index of the keymap's current snapshot, building it on first use. Call under a read action. */
+    KeymapSearchIndex searchIndex(Keymap keymap) {
+        KeymapSnapshot snapshot = get(keymap);
+        KeymapSearchIndex index = searchIndex;
+        if (index == null || index.snapshot() != snapshot) {
+            index = KeymapSearchIndex.build(snapshot);
+            searchIndex = index;
+        }
+        return index;
+    }
+
+    /** Drops the snapshot of the keymap and of every keymap derived from it. */
+    synchronized void invalidate(Keymap keymap) {
+        modificationCount.incrementAndGet();
+        for (String keymapName : sameOrDerivedKeymapNames(keymap)) {
+            snapshots.remove(keymapName);
+            staleActionIds.remove(keymapName);
+        }
+    }
+
+    /** Marks the given actions stale in the snapshot of the keymap and of every keymap derived from it. */
+    synchronized void invalidate(Keymap keymap, Collection<String> actionIds) {
+        modificationCount.incrementAndGet();
+        for (String keymapName : sameOrDerivedKeymapNames(keymap)) {
+            if (snapshots.containsKey(keymapName)) {
+                staleActionIds.computeIfAbsent(keymapName, k -> ConcurrentHashMap.newKeySet()).addAll(actionIds);
+            }
+        }
+    }
+
+    synchronized void invalidateAll() {
+        modificationCount.incrementAndGet();
+        snapshots.clear();
+        staleActionIds.clear();
+    }
+
+    private static List<String> sameOrDerivedKeymapNames(Keymap keymap) {
+        List<String> keymapNames = new ArrayList<>();
+        keymapNames.add(keymap.getName());
+        for (Keymap candidate : KeymapManagerEx.getInstanceEx().getAllKeymaps()) {
+            for (Keymap parent = candidate.getParent(); parent != null; parent = parent.getParent()) {
+                if (parent.getName().equals(keymap.getName())) {
+                    keymapNames.add(candidate.getName());
+                    break;
+                }
+            }
+        }
+        return keymapNames;
+    }
+
+    @Override
+    public void dispose() {
+        snapshots.clear();
+        searchIndex = null;
+    }
+}
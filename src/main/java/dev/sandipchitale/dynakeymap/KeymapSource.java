@@ -0,0 +1,59 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.Shortcut;
+import com.intellij.openapi.keymap.Keymap;
+import com.intellij.openapi.progress.ProgressManager;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * What a {@link KeymapSnapshot} is {@link KeymapSnapshot#collect collected} from. {@link #of} reads an IDE keymap;
+ * the benchmarks supply synthetic keymaps, so collection can be measured without an IDE.
+ */
+interface KeymapSource {
+
+    String name();
+
+    /** Every action with shortcuts in the keymap or a keymap it is based on, in keymap order. */
+    Collection<String> actionIds();
+
+    Shortcut[] shortcuts(String actionId);
+
+    String actionName(String actionId);
+
+    /** Ids of the actions the keymap sets itself; empty for a keymap without a parent, {@code null} if unknown. */
+    Set<String> overrides();
+
+    /** Reads the keymap, checking for cancellation before every action. Call under a read action. */
+    static KeymapSource of(Keymap keymap, ActionManager actionManager) {
+        return new KeymapSource() {
+            @Override
+            public String name() {
+                return keymap.getName();
+            }
+
+            @Override
+            public Collection<String> actionIds() {
+                return keymap.getActionIdList();
+            }
+
+            @Override
+            public Shortcut[] shortcuts(String actionId) {
+                ProgressManager.checkCanceled();
+                return keymap.getShortcuts(actionId);
+            }
+
+            @Override
+            public String actionName(String actionId) {
+                return Shortcuts.actionDisplayName(actionManager, actionId);
+            }
+
+            @Override
+            public Set<String> overrides() {
+                return KeymapSnapshot.overrides(keymap);
+            }
+        };
+    }
+}
@@ -1,153 +1,165 @@
 package dev.sandipchitale.dynakeymap;
 
-import com.intellij.openapi.actionSystem.ActionManager;
 import com.intellij.openapi.actionSystem.KeyboardShortcut;
 import com.intellij.openapi.actionSystem.Shortcut;
 import com.intellij.openapi.application.ApplicationInfo;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.keymap.Keymap;
-
-import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
-import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.jetbrains.annotations.NotNull;
 
 import java.awt.Desktop;
-import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
 
-import static dev.sandipchitale.dynakeymap.Exports.convertFileToDataUrl;
-import static dev.sandipchitale.dynakeymap.Exports.escapeHtml;
 import static dev.sandipchitale.dynakeymap.Exports.nowFormatted;
-import static dev.sandipchitale.dynakeymap.Exports.splashImageTempFile;
-import static dev.sandipchitale.dynakeymap.Shortcuts.normalizeShortcut;
+import static dev.sandipchitale.dynakeymap.Exports.splashImage;
 
-/** Renders the action map of a keymap as a PDF (cover page + table) and opens it. */
+/**
+ * Renders the action map of a keymap as a PDF (cover page + table) and opens it. The cover and the paginated table
+ * are written with PDFBox into one document in a single pass, from a cancellable background task.
+ */
 final class PdfExporter {
 
+    // Page content beyond this is kept in a scratch file rather than on the heap until the document is saved.
+    private static final long MAX_MAIN_MEMORY_BYTES = 16L * 1024 * 1024;
+
+    // Rows written between progress updates and cancellation checks.
+    private static final int PROGRESS_STEP = 256;
+
+    private static final String[] ACTION_MAP_HEADERS = {"#", "Action", "Shortcut"};
+    private static final boolean[] ACTION_MAP_RIGHT_ALIGNED = {true, false, false};
+
     /**
-     * @param selectedKeymap keymap whose bound actions are tabulated; unbound actions are intentionally omitted
-     * @param keyMapLabel    label shown on the cover page
+     * @param keymap      keymap whose bound actions are tabulated; unbound actions are intentionally omitted
+     * @param keyMapLabel label shown on the cover page
      */
-    static void export(Keymap selectedKeymap, Object keyMapLabel) {
-        String formattedDate = nowFormatted();
-        ApplicationInfo applicationInfo = ApplicationInfo.getInstance();
-        Path splashImagePath = splashImageTempFile();
-        File splashFile = splashImagePath == null ? null : splashImagePath.toFile();
-
-        // Body: OpenHTMLtoPDF expects well-formed XHTML.
-        StringBuilder sb = new StringBuilder();
-        sb.append("<html xmlns='http://www.w3.org/1999/xhtml'><head><meta charset='UTF-8' />");
-        sb.append("<style>" +
-                "@page{size: letter landscape; margin:24pt;}" +
-                "body{font-family: sans-serif; font-size:10pt;}" +
-                ".title{font-size:24pt; font-weight:bold; margin:12pt 0;}" +
-                ".subtitle{font-size:12pt; font-weight:bold; margin:6pt 0;}" +
-                ".section{font-size:16pt; font-weight:bold; margin:12pt 0 6pt 0;}" +
-                "table{border-collapse:collapse; width:100%;}" +
-                "th,td{border:1px solid #999; padding:4pt; white-space:nowrap;}" +
-                "th{background:#eee;}" +
-                ".row-alt{background:#f6f6f6;}" +
-                "img.logo{max-width:100%; height:auto;}" +
-                "</style></head><body>");
-
-        if (splashFile != null) {
-            try {
-                sb.append("<div style='margin:6pt 0'><img class='logo' src='").append(convertFileToDataUrl(splashFile)).append("' /></div>");
-            } catch (IOException e) {
-                // ignore logo if unavailable
+    static void export(Project project, Keymap keymap, Object keyMapLabel) {
+        new Task.Backgroundable(project, "Generating PDF", true) {
+            private Path pdfPath;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                KeymapSnapshot snapshot = ReadAction.nonBlocking(() -> KeymapSnapshots.getInstance().get(keymap)).executeSynchronously();
+                try {
+                    pdfPath = Files.createTempFile("Action map and Key maps", ".pdf");
+                    write(snapshot, keyMapLabel, pdfPath, indicator);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
             }
+
+            @Override
+            public void onSuccess() {
+                try {
+                    Desktop.getDesktop().open(pdfPath.toFile());
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }.queue();
+    }
+
+    /** Writes the document to {@code path}. A cancelled export leaves no file behind. */
+    static void write(KeymapSnapshot snapshot, Object keyMapLabel, Path path, ProgressIndicator indicator) throws IOException {
+        try (Timings.Span span = Timings.start(Timings.Phase.PDF_RENDER, String.valueOf(keyMapLabel));
+             PDDocument document = new PDDocument(MemoryUsageSetting.setupMixed(MAX_MAIN_MEMORY_BYTES))) {
+            PdfTableWriter.Fonts fonts = PdfTableWriter.Fonts.detached(document);
+            writeCover(document, fonts, keyMapLabel);
+            writeActionMap(document, fonts, snapshot, indicator);
+            indicator.checkCanceled();
+            document.save(path.toFile());
+        } catch (ProcessCanceledException e) {
+            Files.deleteIfExists(path);
+            throw e;
         }
+    }
 
-        sb.append("<div class='title'>").append(applicationInfo.getFullApplicationName())
-                .append(" ( ").append(applicationInfo.getFullVersion()).append(" )</div>");
-        sb.append("<div class='subtitle'>As of: ").append(formattedDate).append("</div>");
-
-        ActionManager actionManager = ActionManager.getInstance();
-        KeymapActions actions = KeymapActions.collect(selectedKeymap, actionManager);
-
-        sb.append("<div class='section'>Action Map</div>");
-        sb.append("<table><tr><th class='text-right'>#</th><th>Action</th><th>Shortcut</th></tr>");
-
-        int lineNumber = 0;
-        for (Map.Entry<String, KeymapActions.ActionIdAndShortCuts> entry : actions.bound().entrySet()) {
-            for (Shortcut shortcut : entry.getValue().shortcuts()) {
-                if (shortcut instanceof KeyboardShortcut keyboardShortcut) {
-                    sb.append(String.format("<tr class='%s'><td style='text-align:right'>%5d</td><td>%s</td><td>%s</td></tr>",
-                            (lineNumber % 2 == 0 ? "row-alt" : ""),
-                            ++lineNumber,
-                            escapeHtml(entry.getKey()),
-                            escapeHtml(normalizeShortcut(keyboardShortcut))));
+    /** A landscape cover page that matches the table pages and carries the logo. */
+    static void writeCover(PDDocument document, PdfTableWriter.Fonts fonts, Object keyMapLabel) throws IOException {
+        ApplicationInfo applicationInfo = ApplicationInfo.getInstance();
+        PDRectangle pageSize = PdfTableWriter.PAGE_SIZE;
+        PDPage page = new PDPage(pageSize);
+        document.addPage(page);
+        try (PDPageContentStream cs = new PDPageContentStream(document, page)) {
+            float margin = 36f; // half-inch margin
+            float yTop = pageSize.getHeight() - margin;
+
+            writeText(cs, fonts, fonts.bold(), 24, margin, yTop - 40, applicationInfo.getFullApplicationName());
+            writeText(cs, fonts, fonts.regular(), 12, margin, yTop - 70, "Version: " + applicationInfo.getFullVersion());
+            writeText(cs, fonts, fonts.regular(), 12, margin, yTop - 90, "As of: " + nowFormatted());
+            writeText(cs, fonts, fonts.bold(), 14, margin, yTop - 120, "Keymap: " + keyMapLabel);
+
+            Exports.SplashImage splashImage = splashImage();
+            if (splashImage != null) {
+                PDImageXObject img = logo(document, splashImage);
+                if (img != null) {
+                    float imgWidth = Math.min(pageSize.getWidth() - 2 * margin, img.getWidth());
+                    float scale = imgWidth / img.getWidth();
+                    cs.drawImage(img, margin, margin, imgWidth, img.getHeight() * scale);
                 }
             }
         }
-        sb.append("</table>");
-        sb.append("</body></html>");
+    }
 
+    /** The splash image as an image of the document, or {@code null} if it cannot be made one; the logo is optional. */
+    private static PDImageXObject logo(PDDocument document, Exports.SplashImage splashImage) {
         try {
-            // Render the body PDF from HTML.
-            Path bodyPdf = Files.createTempFile("dynakeymap-body", ".pdf");
-            try (OutputStream os = Files.newOutputStream(bodyPdf)) {
-                PdfRendererBuilder builder = new PdfRendererBuilder();
-                builder.withHtmlContent(sb.toString(), null);
-                builder.toStream(os);
-                builder.run();
-            }
+            return splashImage.pdfImage() != null
+                    ? splashImage.pdfImage().create(document)
+                    : LosslessFactory.createFromImage(document, splashImage.image());
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    static void writeActionMap(PDDocument document, PdfTableWriter.Fonts fonts, KeymapSnapshot snapshot, ProgressIndicator indicator) throws IOException {
+        indicator.setIndeterminate(false);
+        indicator.setText("Action Map");
+        int totalRows = 0;
+        for (KeymapActions.ActionIdAndShortCuts bound : snapshot.actions().bound().values()) {
+            totalRows += bound.shortcuts().length;
+        }
 
-            // Build a landscape cover page that matches the body and carries the logo.
-            Path coverPdf = Files.createTempFile("dynakeymap-cover", ".pdf");
-            try (PDDocument doc = new PDDocument()) {
-                PDRectangle pageSize = new PDRectangle(PDRectangle.LETTER.getHeight(), PDRectangle.LETTER.getWidth());
-                PDPage page = new PDPage(pageSize);
-                doc.addPage(page);
-                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
-                    float margin = 36f; // half-inch margin
-                    float yTop = pageSize.getHeight() - margin;
-
-                    writeText(cs, PDType1Font.HELVETICA_BOLD, 24, margin, yTop - 40, applicationInfo.getFullApplicationName());
-                    writeText(cs, PDType1Font.HELVETICA, 12, margin, yTop - 70, "Version: " + applicationInfo.getFullVersion());
-                    writeText(cs, PDType1Font.HELVETICA, 12, margin, yTop - 90, "As of: " + formattedDate);
-                    writeText(cs, PDType1Font.HELVETICA_BOLD, 14, margin, yTop - 120, "Keymap: " + keyMapLabel);
-
-                    if (splashFile != null && splashFile.exists()) {
-                        try {
-                            PDImageXObject img = PDImageXObject.createFromFileByContent(splashFile, doc);
-                            float imgWidth = Math.min(pageSize.getWidth() - 2 * margin, img.getWidth());
-                            float scale = imgWidth / img.getWidth();
-                            cs.drawImage(img, margin, margin, imgWidth, img.getHeight() * scale);
-                        } catch (IOException ignored) {
-                        }
+        float numberWidth = 40f;
+        float shortcutWidth = 240f;
+        float[] widths = {numberWidth, PdfTableWriter.tableWidth() - numberWidth - shortcutWidth, shortcutWidth};
+        try (PdfTableWriter table = new PdfTableWriter(document, fonts, "Action Map", ACTION_MAP_HEADERS, widths, ACTION_MAP_RIGHT_ALIGNED)) {
+            int lineNumber = 0;
+            int writtenRows = 0;
+            for (Map.Entry<String, KeymapActions.ActionIdAndShortCuts> entry : snapshot.actions().bound().entrySet()) {
+                for (Shortcut shortcut : entry.getValue().shortcuts()) {
+                    if (shortcut instanceof KeyboardShortcut keyboardShortcut) {
+                        table.addRow(Integer.toString(++lineNumber), entry.getKey(), KeyStrokeFormat.text(keyboardShortcut));
+                    }
+                    if (++writtenRows % PROGRESS_STEP == 0) {
+                        indicator.checkCanceled();
+                        indicator.setFraction((double) writtenRows / totalRows);
                     }
                 }
-                doc.save(coverPdf.toFile());
             }
-
-            // Merge cover + body.
-            Path finalPdf = Files.createTempFile("Action map and Key maps", ".pdf");
-            PDFMergerUtility merger = new PDFMergerUtility();
-            merger.setDestinationFileName(finalPdf.toString());
-            merger.addSource(coverPdf.toFile());
-            merger.addSource(bodyPdf.toFile());
-            merger.mergeDocuments(null);
-
-            Desktop.getDesktop().open(finalPdf.toFile());
-        } catch (Exception e) {
-            throw new RuntimeException(e);
         }
     }
 
-    private static void writeText(PDPageContentStream cs, PDType1Font font, float size, float x, float y, String text) throws IOException {
+    private static void writeText(PDPageContentStream cs, PdfTableWriter.Fonts fonts, PDFont font, float size, float x, float y,
+                                  String text) throws IOException {
         cs.beginText();
-        cs.setFont(font, size);
         cs.newLineAtOffset(x, y);
-        cs.showText(text);
+        fonts.show(cs, font, size, text);
         cs.endText();
     }
 
@@ -0,0 +1,258 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.Desktop;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+
+import static dev.sandipchitale.dynakeymap.KeyMapLayout.ALL_KEYS;
+import static dev.sandipchitale.dynakeymap.KeyMapLayout.MODIFIERS;
+
+/**
+ * Renders the Keymap grid as a printable PDF. The grid is too wide for a page, so it is cut into tiles: groups of
+ * modifier columns, each repeating the key columns, times ranges of rows that fill a page. Tiles are rendered on a
+ * bounded application pool into documents of their own and their pages are assembled in order behind a cover page.
+ */
+final class PdfGridExporter {
+
+    private static final float KEY_COLUMN_WIDTH = 56f;
+    private static final float MIN_MODIFIER_COLUMN_WIDTH = 150f;
+    private static final String[] KEY_HEADERS = {"First Key", "Second Key"};
+
+    // Rendering is CPU bound; leave a core to the IDE.
+    private static final int WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    // Tile documents stay open until the assembled document is saved, so they keep little on the heap.
+    private static final long MAX_TILE_MAIN_MEMORY_BYTES = 1024L * 1024;
+    private static final long MAX_MAIN_MEMORY_BYTES = 16L * 1024 * 1024;
+
+    /**
+     * A page worth of the grid.
+     *
+     * @param firstModifier first MODIFIERS index of the tile's column group
+     * @param lastModifier  end (exclusive) of the column group
+     * @param rows          grid rows of the tile, in order
+     * @param page          1-based position of the tile within its column group
+     */
+    private record Tile(int firstModifier, int lastModifier, int[] rows, int page) {
+    }
+
+    /**
+     * @param keyMapLabel label shown on the cover page and tile titles
+     * @param keyMapRows  the rows of the Keymap grid
+     * @param shownRows   indexes into {@code keyMapRows} of the rows to print, in order: those the Keymap tab shows,
+     *                    as sorted and filtered there
+     */
+    static void export(Project project, Object keyMapLabel, KeyMapTableModel.Rows keyMapRows, int[] shownRows) {
+        new Task.Backgroundable(project, "Generating keymap grid PDF", true) {
+            private Path pdfPath;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try {
+                    pdfPath = Files.createTempFile("Key map grid", ".pdf");
+                    write(keyMapLabel, keyMapRows, shownRows, pdfPath, indicator);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void onSuccess() {
+                try {
+                    Desktop.getDesktop().open(pdfPath.toFile());
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }.queue();
+    }
+
+    /**
+     * Writes the document to {@code path}. Tiles are assembled as soon as they and all tiles before them are done,
+     * while later tiles are still being rendered. A cancelled export leaves no file behind.
+     */
+    static void write(Object keyMapLabel, KeyMapTableModel.Rows keyMapRows, int[] shownRows, Path path, ProgressIndicator indicator)
+            throws IOException {
+        indicator.setIndeterminate(false);
+        indicator.setText("Key Map");
+        int modifiersPerTile = modifiersPerTile();
+        List<Tile> tiles = tiles(keyMapRows, shownRows, modifiersPerTile);
+        float modifierColumnWidth = (PdfTableWriter.tableWidth() - KEY_HEADERS.length * KEY_COLUMN_WIDTH) / modifiersPerTile;
+
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("DynaKeyMap Grid PDF", WORKERS);
+        // Every rendered tile document, including those rendered after the export failed or was cancelled.
+        Queue<PDDocument> rendered = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<PDDocument>> renders = new ArrayList<>(tiles.size());
+        for (Tile tile : tiles) {
+            renders.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    PDDocument tileDocument = render(tile, keyMapLabel, keyMapRows, modifierColumnWidth, indicator);
+                    rendered.add(tileDocument);
+                    return tileDocument;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor));
+        }
+        // Includes waiting for tiles still being rendered; their own time is recorded per tile.
+        try (Timings.Span span = Timings.start(Timings.Phase.PDF_MERGE, String.valueOf(keyMapLabel));
+             PDDocument document = new PDDocument(MemoryUsageSetting.setupMixed(MAX_MAIN_MEMORY_BYTES))) {
+            PdfExporter.writeCover(document, PdfTableWriter.Fonts.detached(document), keyMapLabel);
+            for (int tile = 0; tile < renders.size(); tile++) {
+                for (PDPage page : ProgressIndicatorUtils.awaitWithCheckCanceled(renders.get(tile), indicator).getPages()) {
+                    document.importPage(page);
+                }
+                indicator.checkCanceled();
+                indicator.setFraction((tile + 1.0) / renders.size());
+            }
+            document.save(path.toFile());
+        } catch (ProcessCanceledException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        } finally {
+            // Tiles not yet started are skipped; those already rendering are waited for, so no document is left open.
+            renders.forEach(render -> render.cancel(false));
+            Exports.shutdownAndAwait(executor);
+            for (PDDocument tileDocument : rendered) {
+                tileDocument.close();
+            }
+        }
+    }
+
+    /** As many modifier columns as fit next to the key columns, spread evenly over the column groups. */
+    private static int modifiersPerTile() {
+        float available = PdfTableWriter.tableWidth() - KEY_HEADERS.length * KEY_COLUMN_WIDTH;
+        int fitting = Math.max(1, (int) (available / MIN_MODIFIER_COLUMN_WIDTH));
+        int groups = (MODIFIERS.length + fitting - 1) / fitting;
+        return (MODIFIERS.length + groups - 1) / groups;
+    }
+
+    /**
+     * Cuts the grid into tiles, column group by column group. Within a group, rows with no binding in the group's
+     * columns are left out, and the remaining rows are packed into page-sized ranges by their height in that group.
+     */
+    private static List<Tile> tiles(KeyMapTableModel.Rows keyMapRows, int[] shownRows, int modifiersPerTile) {
+        float pageHeight = PdfTableWriter.bodyHeight(true);
+        List<Tile> tiles = new ArrayList<>();
+        int[] rows = new int[shownRows.length];
+        for (int firstModifier = 0; firstModifier < MODIFIERS.length; firstModifier += modifiersPerTile) {
+            int lastModifier = Math.min(MODIFIERS.length, firstModifier + modifiersPerTile);
+            int page = 0;
+            int size = 0;
+            float height = 0;
+            for (int row : shownRows) {
+                int lines = lines(keyMapRows, row, firstModifier, lastModifier);
+                if (lines == 0) {
+                    continue;
+                }
+                float rowHeight = PdfTableWriter.rowHeight(lines);
+                if (size > 0 && height + rowHeight > pageHeight) {
+                    tiles.add(new Tile(firstModifier, lastModifier, Arrays.copyOf(rows, size), ++page));
+                    size = 0;
+                    height = 0;
+                }
+                rows[size++] = row;
+                height += rowHeight;
+            }
+            if (size > 0 || page == 0) {
+                tiles.add(new Tile(firstModifier, lastModifier, Arrays.copyOf(rows, size), ++page));
+            }
+        }
+        return tiles;
+    }
+
+    /** The largest number of actions in the row's cells of the column group. */
+    private static int lines(KeyMapTableModel.Rows keyMapRows, int row, int firstModifier, int lastModifier) {
+        int lines = 0;
+        int[] cellOffsets = keyMapRows.cellOffsets();
+        for (int cell = row * MODIFIERS.length + firstModifier; cell < row * MODIFIERS.length + lastModifier; cell++) {
+            lines = Math.max(lines, cellOffsets[cell + 1] - cellOffsets[cell]);
+        }
+        return lines;
+    }
+
+    /** Renders one tile into a document of its own, on a pool thread. */
+    private static PDDocument render(Tile tile, Object keyMapLabel, KeyMapTableModel.Rows keyMapRows, float modifierColumnWidth,
+                                     ProgressIndicator indicator) throws IOException {
+        indicator.checkCanceled();
+        int modifiers = tile.lastModifier() - tile.firstModifier();
+        String[] headers = new String[KEY_HEADERS.length + modifiers];
+        float[] widths = new float[headers.length];
+        System.arraycopy(KEY_HEADERS, 0, headers, 0, KEY_HEADERS.length);
+        for (int column = 0; column < KEY_HEADERS.length; column++) {
+            widths[column] = KEY_COLUMN_WIDTH;
+        }
+        for (int modifier = 0; modifier < modifiers; modifier++) {
+            String name = MODIFIERS[tile.firstModifier() + modifier];
+            headers[KEY_HEADERS.length + modifier] = name.isEmpty() ? "(none)" : name;
+            widths[KEY_HEADERS.length + modifier] = modifierColumnWidth;
+        }
+        String title = keyMapLabel + " KeyMap - " + String.join(", ", List.of(headers).subList(KEY_HEADERS.length, headers.length))
+                + " (" + tile.page() + ")";
+
+        PDDocument document = new PDDocument(MemoryUsageSetting.setupMixed(MAX_TILE_MAIN_MEMORY_BYTES));
+        try {
+            PdfTableWriter.Fonts fonts = PdfTableWriter.Fonts.detached(document);
+            try (Timings.Span span = Timings.start(Timings.Phase.PDF_RENDER, title);
+                 PdfTableWriter table = new PdfTableWriter(document, fonts, title, headers, widths, new boolean[headers.length])) {
+                String[][] cellLines = new String[headers.length][];
+                for (int row : tile.rows()) {
+                    boolean chordRow = keyMapRows.chordRows()[row];
+                    String key = ALL_KEYS.get(keyMapRows.keys()[row]);
+                    cellLines[0] = new String[]{chordRow ? "" : key};
+                    cellLines[1] = new String[]{chordRow ? key : ""};
+                    for (int modifier = 0; modifier < modifiers; modifier++) {
+                        cellLines[KEY_HEADERS.length + modifier] = cellLines(keyMapRows, row * MODIFIERS.length + tile.firstModifier() + modifier, chordRow);
+                    }
+                    table.addRow(cellLines);
+                }
+            }
+            // The tile is never saved; its pages are imported into the assembled document.
+            fonts.subset();
+        } catch (IOException | RuntimeException e) {
+            document.close();
+            throw e;
+        }
+        return document;
+    }
+
+    /**
+     * One line per action of the cell. The row and column already tell the keystroke, so only chord lines repeat
+     * their first keystroke.
+     */
+    private static String[] cellLines(KeyMapTableModel.Rows keyMapRows, int cell, boolean chordRow) {
+        int start = keyMapRows.cellOffsets()[cell];
+        int end = keyMapRows.cellOffsets()[cell + 1];
+        String[] lines = new String[end - start];
+        for (int entry = start; entry < end; entry++) {
+            String actionName = keyMapRows.actionTable().name(keyMapRows.cellActions()[entry]);
+            lines[entry - start] = chordRow
+                    ? "[ " + keyMapRows.labels().get(keyMapRows.cellFirstKeyStrokes()[entry]) + " ] " + actionName
+                    : actionName;
+        }
+        return lines;
+    }
+
+    private PdfGridExporter() {
+    }
+}
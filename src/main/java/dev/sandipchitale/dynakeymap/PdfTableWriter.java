@@ -0,0 +1,403 @@
+package dev.sandipchitale.dynakeymap;
+
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.util.Matrix;
+
+import java.awt.Color;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Paginates a table straight into a PDFBox document: a title on the first page, the header row repeated on every
+ * page, striped rows, cell borders, and text cut to the column width. Cells may span several lines. Uses the
+ * standard Helvetica fonts, which PDFBox loads once per session and never embeds, falling back per character to a
+ * Unicode TrueType font for text they cannot encode.
+ * <p>
+ * PDFBox documents are not thread safe, and neither are the width and encoding caches of a font instance, so each
+ * document gets its own {@link Fonts#detached fonts}; only the font metrics behind them are shared.
+ */
+final class PdfTableWriter implements Closeable {
+
+    static final PDRectangle PAGE_SIZE = new PDRectangle(PDRectangle.LETTER.getHeight(), PDRectangle.LETTER.getWidth());
+    static final float MARGIN = 24f;
+
+    private static final float FONT_SIZE = 9f;
+    private static final float TITLE_FONT_SIZE = 16f;
+    private static final float LINE_HEIGHT = 11f;
+    private static final float PADDING = 3f;
+    private static final String ELLIPSIS = "...";
+
+    private static final Color HEADER_BACKGROUND = new Color(0xEE, 0xEE, 0xEE);
+    private static final Color ALT_ROW_BACKGROUND = new Color(0xF6, 0xF6, 0xF6);
+    private static final Color BORDER = new Color(0x99, 0x99, 0x99);
+
+    /**
+     * Fonts of one document: regular and bold Helvetica, and Unicode TrueType fonts of the Java runtime or the system
+     * for the characters Helvetica cannot encode (such as Cyrillic or CJK action names). A fallback font is loaded into
+     * the document, as a subset, the first time a character needs it; characters no font has are drawn as '?'.
+     */
+    static final class Fonts {
+
+        private static final List<Path> FALLBACK_FILES = fallbackFiles();
+
+        private final PDDocument document;
+        private final PDFont regular;
+        private final PDFont bold;
+        // FALLBACK_FILES loaded so far, in order; null where a file did not load.
+        private final List<PDFont> fallbacks = new ArrayList<>();
+
+        private Fonts(PDDocument document, PDFont regular, PDFont bold) {
+            this.document = document;
+            this.regular = regular;
+            this.bold = bold;
+        }
+
+        /** New Helvetica instances with caches of their own, unlike {@link PDType1Font#HELVETICA} and friends. */
+        static Fonts detached(PDDocument document) throws IOException {
+            return new Fonts(document, standardFont("Helvetica"), standardFont("Helvetica-Bold"));
+        }
+
+        private static PDFont standardFont(String name) throws IOException {
+            COSDictionary font = new COSDictionary();
+            font.setItem(COSName.TYPE, COSName.FONT);
+            font.setItem(COSName.SUBTYPE, COSName.TYPE1);
+            font.setName(COSName.BASE_FONT, name);
+            font.setItem(COSName.ENCODING, COSName.WIN_ANSI_ENCODING);
+            return new PDType1Font(font);
+        }
+
+        private static List<Path> fallbackFiles() {
+            List<Path> candidates = new ArrayList<>();
+            String windows = System.getenv("WINDIR");
+            if (windows != null) {
+                candidates.add(Path.of(windows, "Fonts", "arialuni.ttf"));
+                candidates.add(Path.of(windows, "Fonts", "arial.ttf"));
+            }
+            candidates.add(Path.of("/System/Library/Fonts/Supplemental/Arial Unicode.ttf"));
+            candidates.add(Path.of("/Library/Fonts/Arial Unicode.ttf"));
+            candidates.add(Path.of("/usr/share/fonts/truetype/dejavu/DejaVuSans.ttf"));
+            candidates.add(Path.of("/usr/share/fonts/truetype/droid/DroidSansFallbackFull.ttf"));
+            candidates.add(Path.of("/usr/share/fonts/truetype/noto/NotoSans-Regular.ttf"));
+            // The runtime the IDE ships with covers at least Latin, Greek and Cyrillic.
+            candidates.add(Path.of(System.getProperty("java.home"), "lib", "fonts", "DroidSans.ttf"));
+            return candidates.stream().filter(Files::isRegularFile).toList();
+        }
+
+        PDFont regular() {
+            return regular;
+        }
+
+        PDFont bold() {
+            return bold;
+        }
+
+        /** Draws the text at the current text position, switching to a fallback font where the given one has no glyph. */
+        void show(PDPageContentStream stream, PDFont font, float size, String text) throws IOException {
+            for (Run run : runs(font, text)) {
+                stream.setFont(run.font(), size);
+                stream.showText(run.text());
+            }
+        }
+
+        /** Width of the text as {@link #show} draws it. */
+        float width(PDFont font, float size, String text) throws IOException {
+            float width = 0;
+            for (Run run : runs(font, text)) {
+                width += run.font().getStringWidth(run.text()) / 1000 * size;
+            }
+            return width;
+        }
+
+        /**
+         * Writes the subsets of the fallback fonts used so far into the document. Saving a document does that itself;
+         * a document whose pages are imported into another one instead needs this first.
+         */
+        void subset() throws IOException {
+            for (PDFont fallback : fallbacks) {
+                if (fallback != null) {
+                    fallback.subset();
+                }
+            }
+        }
+
+        private record Run(PDFont font, String text) {
+        }
+
+        private List<Run> runs(PDFont font, String text) throws IOException {
+            if (canEncode(font, text)) {
+                return List.of(new Run(font, text));
+            }
+            List<Run> runs = new ArrayList<>();
+            StringBuilder sb = new StringBuilder(text.length());
+            PDFont runFont = font;
+            for (int i = 0; i < text.length(); ) {
+                int codePoint = text.codePointAt(i);
+                i += Character.charCount(codePoint);
+                String c = Character.toString(codePoint);
+                PDFont charFont = fontFor(font, c);
+                if (charFont == null) {
+                    charFont = font;
+                    c = "?";
+                }
+                if (charFont != runFont && !sb.isEmpty()) {
+                    runs.add(new Run(runFont, sb.toString()));
+                    sb.setLength(0);
+                }
+                runFont = charFont;
+                sb.append(c);
+            }
+            if (!sb.isEmpty()) {
+                runs.add(new Run(runFont, sb.toString()));
+            }
+            return runs;
+        }
+
+        /** The given font if it can encode the character, else the first fallback that can, else {@code null}. */
+        private PDFont fontFor(PDFont font, String c) throws IOException {
+            if (canEncode(font, c)) {
+                return font;
+            }
+            for (int i = 0; i < FALLBACK_FILES.size(); i++) {
+                if (i == fallbacks.size()) {
+                    fallbacks.add(load(FALLBACK_FILES.get(i)));
+                }
+                PDFont fallback = fallbacks.get(i);
+                if (fallback != null && canEncode(fallback, c)) {
+                    return fallback;
+                }
+            }
+            return null;
+        }
+
+        private PDFont load(Path file) {
+            try {
+                return PDType0Font.load(document, file.toFile());
+            } catch (IOException | RuntimeException e) {
+                // An unreadable font is skipped; the next one is tried.
+                return null;
+            }
+        }
+
+        private static boolean canEncode(PDFont font, String text) throws IOException {
+            try {
+                font.encode(text);
+                return true;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+    }
+
+    private final PDDocument document;
+    private final Fonts fonts;
+    private final PDFont font;
+    private final PDFont boldFont;
+    private final String title;
+    private final String[] headers;
+    private final float[] widths;
+    private final boolean[] rightAligned;
+
+    private PDPageContentStream stream;
+    private float tableTop;
+    private float y;
+    private int rows;
+
+    /**
+     * @param title        drawn above the table on its first page, may be {@code null}
+     * @param widths       column widths in points
+     * @param rightAligned per column, whether its text is right aligned
+     */
+    PdfTableWriter(PDDocument document, Fonts fonts, String title, String[] headers, float[] widths, boolean[] rightAligned) {
+        this.document = document;
+        this.fonts = fonts;
+        this.font = fonts.regular();
+        this.boldFont = fonts.bold();
+        this.title = title;
+        this.headers = headers;
+        this.widths = widths;
+        this.rightAligned = rightAligned;
+    }
+
+    /** Width available to the table on a page. */
+    static float tableWidth() {
+        return PAGE_SIZE.getWidth() - 2 * MARGIN;
+    }
+
+    /** Height available to rows on a page below a single line header, and below the title if there is one. */
+    static float bodyHeight(boolean titled) {
+        float height = PAGE_SIZE.getHeight() - 2 * MARGIN - rowHeight(1);
+        return titled ? height - titleHeight() : height;
+    }
+
+    static float rowHeight(int lines) {
+        return Math.max(1, lines) * LINE_HEIGHT + 2 * PADDING;
+    }
+
+    private static float titleHeight() {
+        return TITLE_FONT_SIZE + 2 * PADDING + LINE_HEIGHT / 2;
+    }
+
+    void addRow(String... cells) throws IOException {
+        String[][] lines = new String[cells.length][];
+        for (int column = 0; column < cells.length; column++) {
+            lines[column] = new String[]{cells[column]};
+        }
+        addRow(lines);
+    }
+
+    /**
+     * Adds a row whose cells hold one string per line. A row taller than a page is split into page-sized parts, each
+     * continuing on the next page.
+     */
+    void addRow(String[][] cellLines) throws IOException {
+        Color background = rows % 2 == 0 ? ALT_ROW_BACKGROUND : null;
+        int lines = lines(cellLines);
+        int pageLines = Math.max(1, (int) ((bodyHeight(title != null) - 2 * PADDING) / LINE_HEIGHT));
+        for (int from = 0; from < lines; from += pageLines) {
+            String[][] part = lines <= pageLines ? cellLines : slice(cellLines, from, from + pageLines);
+            float height = rowHeight(lines(part));
+            if (stream == null || y - height < MARGIN) {
+                startPage();
+            }
+            drawRow(part, height, false, background);
+        }
+        rows++;
+    }
+
+    private static int lines(String[][] cellLines) {
+        int lines = 1;
+        for (String[] cell : cellLines) {
+            lines = Math.max(lines, cell.length);
+        }
+        return lines;
+    }
+
+    /** Lines {@code from} (inclusive) to {@code to} (exclusive) of every cell. */
+    private static String[][] slice(String[][] cellLines, int from, int to) {
+        String[][] slice = new String[cellLines.length][];
+        for (int column = 0; column < cellLines.length; column++) {
+            String[] cell = cellLines[column];
+            slice[column] = Arrays.copyOfRange(cell, Math.min(from, cell.length), Math.min(to, cell.length));
+        }
+        return slice;
+    }
+
+    private void startPage() throws IOException {
+        finishPage();
+        PDPage page = new PDPage(PAGE_SIZE);
+        document.addPage(page);
+        stream = new PDPageContentStream(document, page);
+        y = PAGE_SIZE.getHeight() - MARGIN;
+        if (title != null && rows == 0) {
+            stream.beginText();
+            stream.newLineAtOffset(MARGIN, y - TITLE_FONT_SIZE);
+            fonts.show(stream, boldFont, TITLE_FONT_SIZE, title);
+            stream.endText();
+            y -= titleHeight();
+        }
+        tableTop = y;
+        String[][] headerLines = new String[headers.length][];
+        for (int column = 0; column < headers.length; column++) {
+            headerLines[column] = new String[]{headers[column]};
+        }
+        drawRow(headerLines, rowHeight(lines(headerLines)), true, HEADER_BACKGROUND);
+    }
+
+    private void drawRow(String[][] cellLines, float height, boolean header, Color background) throws IOException {
+        float width = 0;
+        for (float columnWidth : widths) {
+            width += columnWidth;
+        }
+        if (background != null) {
+            stream.setNonStrokingColor(background);
+            stream.addRect(MARGIN, y - height, width, height);
+            stream.fill();
+        }
+
+        PDFont font = header ? boldFont : this.font;
+        stream.setNonStrokingColor(Color.BLACK);
+        stream.beginText();
+        float x = MARGIN;
+        for (int column = 0; column < widths.length; column++) {
+            String[] lines = column < cellLines.length ? cellLines[column] : new String[0];
+            float textWidth = widths[column] - 2 * PADDING;
+            for (int line = 0; line < lines.length; line++) {
+                String text = fit(font, lines[line], textWidth);
+                if (text.isEmpty()) {
+                    continue;
+                }
+                float textX = x + PADDING;
+                if (rightAligned[column]) {
+                    textX += textWidth - fonts.width(font, FONT_SIZE, text);
+                }
+                float baseline = y - PADDING - (line + 1) * LINE_HEIGHT + (LINE_HEIGHT - FONT_SIZE) / 2 + 1;
+                stream.setTextMatrix(Matrix.getTranslateInstance(textX, baseline));
+                fonts.show(stream, font, FONT_SIZE, text);
+            }
+            x += widths[column];
+        }
+        stream.endText();
+
+        y -= height;
+        stream.setStrokingColor(BORDER);
+        stream.setLineWidth(0.5f);
+        stream.moveTo(MARGIN, y);
+        stream.lineTo(MARGIN + width, y);
+        stream.stroke();
+    }
+
+    /** Draws the top and column borders of the page's table and closes its content stream. */
+    private void finishPage() throws IOException {
+        if (stream == null) {
+            return;
+        }
+        float x = MARGIN;
+        stream.moveTo(x, tableTop);
+        stream.lineTo(x, y);
+        for (float columnWidth : widths) {
+            x += columnWidth;
+            stream.moveTo(x, tableTop);
+            stream.lineTo(x, y);
+        }
+        stream.moveTo(MARGIN, tableTop);
+        stream.lineTo(x, tableTop);
+        stream.stroke();
+        stream.close();
+        stream = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (stream == null && rows == 0) {
+            // An empty table still gets its title and header.
+            startPage();
+        }
+        finishPage();
+    }
+
+    /** Cuts the text to the width, ending it with an ellipsis. */
+    private String fit(PDFont font, String text, float width) throws IOException {
+        if (fonts.width(font, FONT_SIZE, text) <= width) {
+            return text;
+        }
+        int length = text.length();
+        while (length > 0 && (Character.isHighSurrogate(text.charAt(length - 1))
+                || fonts.width(font, FONT_SIZE, text.substring(0, length) + ELLIPSIS) > width)) {
+            length--;
+        }
+        return text.substring(0, length) + ELLIPSIS;
+    }
+}
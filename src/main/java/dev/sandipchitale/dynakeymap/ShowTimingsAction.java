@@ -0,0 +1,12 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import org.jetbrains.annotations.NotNull;
+
+public class ShowTimingsAction extends AbstractDynaKeyMapAction {
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent anActionEvent) {
+        new TimingsDialog(anActionEvent.getProject()).show();
+    }
+}
@@ -0,0 +1,82 @@
+package dev.sandipchitale.dynakeymap;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.BitSet;
+import java.util.Locale;
+
+/**
+ * Trigram index over a fixed array of texts, answering case-insensitive substring queries with the indexes of the
+ * matching texts. Only the texts on the shortest posting list of the query's trigrams are verified, so a query
+ * touches a small fraction of the texts instead of all of them.
+ */
+final class TextIndex {
+
+    private static final int GRAM = 3;
+
+    private final String[] texts;
+    private final Long2ObjectOpenHashMap<int[]> postings;
+
+    private TextIndex(String[] texts, Long2ObjectOpenHashMap<int[]> postings) {
+        this.texts = texts;
+        this.postings = postings;
+    }
+
+    static TextIndex of(String[] texts) {
+        String[] lowerCaseTexts = new String[texts.length];
+        Long2ObjectOpenHashMap<IntArrayList> lists = new Long2ObjectOpenHashMap<>();
+        for (int doc = 0; doc < texts.length; doc++) {
+            String text = texts[doc].toLowerCase(Locale.ROOT);
+            lowerCaseTexts[doc] = text;
+            for (int i = 0; i + GRAM <= text.length(); i++) {
+                IntArrayList docs = lists.computeIfAbsent(gram(text, i), g -> new IntArrayList());
+                // Docs are added in order, so a repeated trigram of the same text is always the last entry.
+                if (docs.isEmpty() || docs.getInt(docs.size() - 1) != doc) {
+                    docs.add(doc);
+                }
+            }
+        }
+        Long2ObjectOpenHashMap<int[]> postings = new Long2ObjectOpenHashMap<>(lists.size());
+        for (Long2ObjectMap.Entry<IntArrayList> entry : lists.long2ObjectEntrySet()) {
+            postings.put(entry.getLongKey(), entry.getValue().toIntArray());
+        }
+        return new TextIndex(lowerCaseTexts, postings);
+    }
+
+    private static long gram(String text, int at) {
+        return ((long) text.charAt(at) << 32) | ((long) text.charAt(at + 1) << 16) | text.charAt(at + 2);
+    }
+
+    /** Returns the indexes of the texts containing {@code query}, ignoring case. */
+    BitSet search(String query) {
+        String text = query.toLowerCase(Locale.ROOT);
+        BitSet matches = new BitSet(texts.length);
+        if (text.length() < GRAM) {
+            for (int doc = 0; doc < texts.length; doc++) {
+                if (texts[doc].contains(text)) {
+                    matches.set(doc);
+                }
+            }
+            return matches;
+        }
+
+        int[] candidates = null;
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            int[] docs = postings.get(gram(text, i));
+            if (docs == null) {
+                return matches;
+            }
+            if (candidates == null || docs.length < candidates.length) {
+                candidates = docs;
+            }
+        }
+        for (int doc : candidates) {
+            if (texts[doc].contains(text)) {
+                matches.set(doc);
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,47 @@
+package dev.sandipchitale.dynakeymap;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A case-insensitive substring filter over the table texts. Action names and ids are looked up in the action table's
+ * {@link TextIndex}es once per action table; the few hundred distinct keystroke and key labels are matched once each
+ * and remembered. Used on the EDT only.
+ */
+final class TextQuery {
+
+    private final String text;
+
+    private KeymapSnapshot.ActionTable actionTable;
+    private BitSet matchingNames;
+    private BitSet matchingIds;
+    private final Map<String, Boolean> matchingLabels = new HashMap<>();
+
+    TextQuery(String text) {
+        this.text = text.toLowerCase(Locale.ROOT);
+    }
+
+    boolean matchesName(KeymapSnapshot.ActionTable actionTable, int action) {
+        lookUp(actionTable);
+        return matchingNames.get(action);
+    }
+
+    boolean matchesId(KeymapSnapshot.ActionTable actionTable, int action) {
+        lookUp(actionTable);
+        return matchingIds.get(action);
+    }
+
+    boolean matchesLabel(String label) {
+        return label != null && matchingLabels.computeIfAbsent(label, l -> l.toLowerCase(Locale.ROOT).contains(text));
+    }
+
+    private void lookUp(KeymapSnapshot.ActionTable actionTable) {
+        if (this.actionTable != actionTable) {
+            this.actionTable = actionTable;
+            matchingNames = actionTable.nameIndex().search(text);
+            matchingIds = actionTable.idIndex().search(text);
+        }
+    }
+}
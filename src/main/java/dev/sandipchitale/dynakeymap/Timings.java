@@ -0,0 +1,174 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-phase timings of refreshes and exports. Each {@link #start started} span is emitted as a JFR event, added to
+ * lock-free per-phase counters (with the time spent on the EDT counted separately) and kept among the
+ * {@link #recent} timings shown by {@link TimingsDialog}. A span on the EDT that takes longer than its phase's budget
+ * is logged as a warning.
+ */
+final class Timings {
+
+    private static final Logger LOG = Logger.getInstance(Timings.class);
+
+    private static final int RECENT_CAPACITY = 200;
+
+    enum Phase {
+        SNAPSHOT("Snapshot collection", 50),
+        GRID_INDEX("Grid index build", 50),
+        ACTION_MAP_ROWS("Action Map rows", 50),
+        CONFLICT_INDEX("Conflict index build", 50),
+        TABLE_FILL("Table fill", 50),
+        ROW_HEIGHTS("Row-height pass", 50),
+        TABLE_PATCH("Table patch", 16),
+        HTML_RENDER("HTML render", 50),
+        PDF_RENDER("PDF render", 50),
+        PDF_MERGE("PDF merge", 50);
+
+        private final String label;
+        private final long edtBudgetMillis;
+
+        Phase(String label, long edtBudgetMillis) {
+            this.label = label;
+            this.edtBudgetMillis = edtBudgetMillis;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * @param detail         what was timed, such as a keymap name; may be empty
+     * @param startedMillis  wall clock time the span started at
+     * @param nanos          duration
+     */
+    record Timing(Phase phase, String detail, long startedMillis, long nanos, boolean edt) {
+    }
+
+    /** Totals of one phase since the IDE started. */
+    record Totals(Phase phase, long count, long nanos, long maxNanos, long edtNanos) {
+    }
+
+    @Name("dev.sandipchitale.dynakeymap.Phase")
+    @Label("Action Map and Keymaps Phase")
+    @Category("Action Map and Keymaps")
+    @StackTrace(false)
+    static final class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Detail")
+        String detail;
+
+        @Label("On EDT")
+        boolean edt;
+    }
+
+    private static final class Counters {
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder edtNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+    }
+
+    private static final Map<Phase, Counters> COUNTERS = new EnumMap<>(Phase.class);
+
+    static {
+        for (Phase phase : Phase.values()) {
+            COUNTERS.put(phase, new Counters());
+        }
+    }
+
+    // Guarded by itself.
+    private static final ArrayDeque<Timing> RECENT = new ArrayDeque<>(RECENT_CAPACITY);
+
+    /** A running span; closing it records the timing. */
+    static final class Span implements AutoCloseable {
+        private final Phase phase;
+        private final String detail;
+        private final PhaseEvent event = new PhaseEvent();
+        private final boolean edt = ApplicationManager.getApplication().isDispatchThread();
+        private final long startedMillis = System.currentTimeMillis();
+        private final long started = System.nanoTime();
+
+        private Span(Phase phase, String detail) {
+            this.phase = phase;
+            this.detail = detail;
+            event.begin();
+        }
+
+        @Override
+        public void close() {
+            long nanos = System.nanoTime() - started;
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = phase.label;
+                event.detail = detail;
+                event.edt = edt;
+                event.commit();
+            }
+            record(new Timing(phase, detail, startedMillis, nanos, edt));
+        }
+    }
+
+    static Span start(Phase phase, String detail) {
+        return new Span(phase, detail);
+    }
+
+    private static void record(Timing timing) {
+        Counters counters = COUNTERS.get(timing.phase());
+        counters.count.increment();
+        counters.nanos.add(timing.nanos());
+        counters.maxNanos.accumulate(timing.nanos());
+        if (timing.edt()) {
+            counters.edtNanos.add(timing.nanos());
+            long millis = timing.nanos() / 1_000_000;
+            if (millis > timing.phase().edtBudgetMillis) {
+                LOG.warn(timing.phase() + (timing.detail().isEmpty() ? "" : " (" + timing.detail() + ")") + " took " + millis
+                        + " ms on the EDT, over its budget of " + timing.phase().edtBudgetMillis + " ms");
+            }
+        }
+        synchronized (RECENT) {
+            if (RECENT.size() == RECENT_CAPACITY) {
+                RECENT.removeFirst();
+            }
+            RECENT.addLast(timing);
+        }
+    }
+
+    /** The most recent timings, newest first. */
+    static List<Timing> recent() {
+        List<Timing> recent;
+        synchronized (RECENT) {
+            recent = new ArrayList<>(RECENT);
+        }
+        return recent.reversed();
+    }
+
+    static List<Totals> totals() {
+        List<Totals> totals = new ArrayList<>();
+        COUNTERS.forEach((phase, counters) -> totals.add(new Totals(phase, counters.count.sum(), counters.nanos.sum(),
+                counters.maxNanos.get(), counters.edtNanos.sum())));
+        return totals;
+    }
+
+    private Timings() {
+    }
+}
@@ -0,0 +1,94 @@
+package dev.sandipchitale.dynakeymap;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.components.JBTabbedPane;
+import com.intellij.ui.table.JBTable;
+import com.intellij.util.ui.JBUI;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.Action;
+import javax.swing.JComponent;
+import javax.swing.SwingConstants;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/** Shows the {@link Timings} totals per phase and the recent timings, as of opening. */
+final class TimingsDialog extends DialogWrapper {
+
+    private static final String[] TOTALS_COLUMNS = {"Phase", "Count", "Total ms", "Mean ms", "Max ms", "EDT ms"};
+    private static final Class<?>[] TOTALS_CLASSES = {Timings.Phase.class, Long.class, Double.class, Double.class, Double.class, Double.class};
+    private static final String[] RECENT_COLUMNS = {"Time", "Phase", "Detail", "ms", "EDT"};
+    private static final Class<?>[] RECENT_CLASSES = {LocalTime.class, Timings.Phase.class, String.class, Double.class, Boolean.class};
+
+    TimingsDialog(Project project) {
+        super(project, true, IdeModalityType.MODELESS);
+        setTitle("Action Map and Keymaps Timings");
+        setOKButtonText("Close");
+        init();
+    }
+
+    @Override
+    protected JComponent createCenterPanel() {
+        List<Timings.Totals> totals = Timings.totals();
+        Object[][] totalsRows = new Object[totals.size()][];
+        for (int i = 0; i < totalsRows.length; i++) {
+            Timings.Totals phase = totals.get(i);
+            totalsRows[i] = new Object[]{phase.phase(), phase.count(), millis(phase.nanos()),
+                    millis(phase.count() == 0 ? 0 : phase.nanos() / phase.count()), millis(phase.maxNanos()), millis(phase.edtNanos())};
+        }
+
+        List<Timings.Timing> recent = Timings.recent();
+        Object[][] recentRows = new Object[recent.size()][];
+        for (int i = 0; i < recentRows.length; i++) {
+            Timings.Timing timing = recent.get(i);
+            recentRows[i] = new Object[]{LocalTime.ofInstant(Instant.ofEpochMilli(timing.startedMillis()), ZoneId.systemDefault()),
+                    timing.phase(), timing.detail(), millis(timing.nanos()), timing.edt()};
+        }
+
+        JBTabbedPane tabbedPane = new JBTabbedPane();
+        tabbedPane.addTab("Phases", ScrollPaneFactory.createScrollPane(table(totalsRows, TOTALS_COLUMNS, TOTALS_CLASSES)));
+        tabbedPane.addTab("Recent", ScrollPaneFactory.createScrollPane(table(recentRows, RECENT_COLUMNS, RECENT_CLASSES)));
+        tabbedPane.setPreferredSize(JBUI.size(800, 500));
+        return tabbedPane;
+    }
+
+    /** A read-only table whose columns sort by their values: numbers numerically, times chronologically. */
+    private static JBTable table(Object[][] rows, String[] columns, Class<?>[] classes) {
+        JBTable table = new JBTable(new DefaultTableModel(rows, columns) {
+            @Override
+            public Class<?> getColumnClass(int column) {
+                return classes[column];
+            }
+
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        });
+        DefaultTableCellRenderer millisRenderer = new DefaultTableCellRenderer() {
+            @Override
+            protected void setValue(Object value) {
+                setText(value == null ? "" : String.format("%.1f", (Double) value));
+            }
+        };
+        millisRenderer.setHorizontalAlignment(SwingConstants.RIGHT);
+        table.setDefaultRenderer(Double.class, millisRenderer);
+        table.setAutoCreateRowSorter(true);
+        return table;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    @Override
+    protected Action @NotNull [] createActions() {
+        return new Action[]{getOKAction()};
+    }
+}